@@ -0,0 +1,92 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.REF_MASTER;
+import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.ZERO_COMMIT;
+
+import java.io.File;
+import java.util.List;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.bjurr.gitchangelog.internal.git.model.GitTag;
+
+/**
+ * Finding the commits and tags of a range between two tags. The range is
+ * walked, or taken from the {@link TagSegmentIndex}, that is built by the
+ * setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GitRepoBenchmark {
+ private static final String UNTAGGED_NAME = "No tag";
+
+ /**
+  * The range is given with {@code -p fromTag=... -p toTag=...}. By default it
+  * is from the oldest to the newest tag on master.
+  */
+ @State(Scope.Benchmark)
+ public static class TagRange {
+  @Param(".")
+  public String repo;
+  @Param("")
+  public String fromTag;
+  @Param("")
+  public String toTag;
+
+  GitRepo gitRepo;
+  ObjectId from;
+  ObjectId to;
+
+  @Setup
+  public void setup() {
+   gitRepo = new GitRepo(new File(repo).getAbsoluteFile());
+   if (fromTag.isEmpty() || toTag.isEmpty()) {
+    List<GitTag> gitTags = gitRepo.getGitRepoData(gitRepo.getCommit(ZERO_COMMIT), gitRepo.getRef(REF_MASTER),
+      UNTAGGED_NAME).getGitTags();
+    for (GitTag gitTag : gitTags) {
+     if (!gitTag.getName().equals(UNTAGGED_NAME)) {
+      if (to == null) {
+       to = gitTag.getGitCommit().getId();
+      }
+      from = gitTag.getGitCommit().getId();
+     }
+    }
+    if (from == null || from.equals(to)) {
+     throw new IllegalStateException("Found less than two tags in " + repo
+       + ", give them with -p fromTag=... -p toTag=...");
+    }
+   } else {
+    from = gitRepo.getRef(fromTag);
+    to = gitRepo.getRef(toTag);
+   }
+   // The first tagged range is walked, the second builds the index
+   gitRepo.getGitRepoData(from, to, UNTAGGED_NAME);
+   gitRepo.getGitRepoData(from, to, UNTAGGED_NAME);
+  }
+ }
+
+ @Benchmark
+ public GitRepoData walk(TagRange range) throws Exception {
+  return range.gitRepo.walk(range.from, range.to, UNTAGGED_NAME, null);
+ }
+
+ @Benchmark
+ public GitRepoData indexed(TagRange range) {
+  return range.gitRepo.getGitRepoData(range.from, range.to, UNTAGGED_NAME);
+ }
+}
@@ -0,0 +1,65 @@
+package se.bjurr.gitchangelog.jmh;
+
+import static se.bjurr.gitchangelog.internal.settings.Settings.defaultSettings;
+import static se.bjurr.gitchangelog.internal.templates.TemplateCache.templateCache;
+
+import java.io.File;
+import java.util.List;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import se.bjurr.gitchangelog.api.model.Changelog;
+import se.bjurr.gitchangelog.internal.git.GitRepo;
+import se.bjurr.gitchangelog.internal.git.GitRepoData;
+import se.bjurr.gitchangelog.internal.issues.IssueIndex;
+import se.bjurr.gitchangelog.internal.issues.IssueParser;
+import se.bjurr.gitchangelog.internal.model.ParsedIssue;
+import se.bjurr.gitchangelog.internal.model.Transformer;
+import se.bjurr.gitchangelog.internal.settings.CompiledPatterns;
+import se.bjurr.gitchangelog.internal.settings.Settings;
+
+import com.github.mustachejava.Mustache;
+
+/**
+ * The output of each stage of the changelog, from the default settings, so
+ * that each stage can be measured by itself. Issues are not looked up, only
+ * parsed. Another repository is given with {@code -p repo=/path/to/repo}.
+ */
+@State(Scope.Benchmark)
+public class ChangelogState {
+ @Param(".")
+ public String repo;
+
+ Settings settings;
+ CompiledPatterns compiledPatterns;
+ GitRepoData gitRepoData;
+ IssueIndex issueIndex;
+ List<ParsedIssue> issues;
+ Changelog changelog;
+ Mustache mustache;
+
+ @Setup
+ public void setup() {
+  settings = defaultSettings();
+  settings.setFromRepo(new File(repo).getAbsolutePath());
+  settings.setJiraServer(null);
+  compiledPatterns = new CompiledPatterns(settings);
+  GitRepo gitRepo = new GitRepo(new File(settings.getFromRepo()));
+  ObjectId from = gitRepo.getCommit(settings.getFromCommit().get());
+  ObjectId to = gitRepo.getRef(settings.getToRef().get());
+  gitRepoData = gitRepo.getGitRepoData(from, to, settings.getUntaggedName());
+  issueIndex = new IssueParser(settings, compiledPatterns, gitRepoData.getGitCommits()).parseForIssueIndex();
+  issues = issueIndex.getIssues(gitRepoData.getGitCommits());
+  Transformer transformer = new Transformer(settings, compiledPatterns);
+  changelog = new Changelog(//
+    transformer.toCommits(gitRepoData.getGitCommits()), //
+    transformer.toTags(gitRepoData.getGitTags(), issueIndex), //
+    transformer.toAuthors(gitRepoData.getGitCommits()), //
+    transformer.toIssues(issues));
+  mustache = templateCache().getTemplate(settings.getTemplatePath(), null);
+ }
+}
@@ -0,0 +1,33 @@
+package se.bjurr.gitchangelog.jmh;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.bjurr.gitchangelog.internal.issues.IssueParser;
+import se.bjurr.gitchangelog.internal.model.ParsedIssue;
+
+/**
+ * Finding the issues of the commits. No issue tracker is configured, so only
+ * the parsing is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IssueParserBenchmark {
+ @Benchmark
+ public List<ParsedIssue> parseForIssues(ChangelogState state) {
+  return new IssueParser(state.settings, state.compiledPatterns, state.gitRepoData.getGitCommits())
+    .parseForIssues();
+ }
+}
@@ -0,0 +1,34 @@
+package se.bjurr.gitchangelog.jmh;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering the model with the default template, that is compiled by the
+ * setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RenderBenchmark {
+ @Benchmark
+ public String render(ChangelogState state) throws IOException {
+  StringWriter writer = new StringWriter();
+  state.mustache.execute(writer, //
+    new Object[] { state.changelog, state.settings.getExtendedVariables() } //
+    ).flush();
+  return writer.toString();
+ }
+}
@@ -0,0 +1,47 @@
+package se.bjurr.gitchangelog.jmh;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.bjurr.gitchangelog.api.model.Author;
+import se.bjurr.gitchangelog.api.model.Issue;
+import se.bjurr.gitchangelog.api.model.Tag;
+import se.bjurr.gitchangelog.internal.model.Transformer;
+
+/**
+ * Creating the model from the commits and issues. Each invocation is a new
+ * {@link Transformer} session, as in a render.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransformerBenchmark {
+ @Benchmark
+ public List<Tag> toTags(ChangelogState state) {
+  return new Transformer(state.settings, state.compiledPatterns) //
+    .toTags(state.gitRepoData.getGitTags(), state.issueIndex);
+ }
+
+ @Benchmark
+ public List<Author> toAuthors(ChangelogState state) {
+  return new Transformer(state.settings, state.compiledPatterns) //
+    .toAuthors(state.gitRepoData.getGitCommits());
+ }
+
+ @Benchmark
+ public List<Issue> toIssues(ChangelogState state) {
+  return new Transformer(state.settings, state.compiledPatterns) //
+    .toIssues(state.issues);
+ }
+}
@@ -0,0 +1,73 @@
+package se.bjurr.gitchangelog.api;
+
+import static com.google.common.base.Optional.fromNullable;
+
+import com.google.common.base.Optional;
+
+/**
+ * A range of a changelog, see
+ * {@link GitChangelogApi#getChangelogs(java.util.List)}. From the first commit
+ * and to master, if not given.
+ */
+public class ChangelogRange {
+ private String fromRef;
+ private String fromCommit;
+ private String toRef;
+ private String toCommit;
+
+ private ChangelogRange() {
+ }
+
+ public static ChangelogRange changelogRange() {
+  return new ChangelogRange();
+ }
+
+ /**
+  * Include all commits from here. Any tag or branch name.
+  */
+ public ChangelogRange withFromRef(String fromRef) {
+  this.fromRef = fromRef;
+  return this;
+ }
+
+ /**
+  * Include all commits from here. Any commit hash, or
+  * {@link GitChangelogApiConstants#ZERO_COMMIT}.
+  */
+ public ChangelogRange withFromCommit(String fromCommit) {
+  this.fromCommit = fromCommit;
+  return this;
+ }
+
+ /**
+  * Include all commits to this reference. Any tag or branch name.
+  */
+ public ChangelogRange withToRef(String toRef) {
+  this.toRef = toRef;
+  return this;
+ }
+
+ /**
+  * Include all commits to here. Any commit hash.
+  */
+ public ChangelogRange withToCommit(String toCommit) {
+  this.toCommit = toCommit;
+  return this;
+ }
+
+ public Optional<String> getFromRef() {
+  return fromNullable(fromRef);
+ }
+
+ public Optional<String> getFromCommit() {
+  return fromNullable(fromCommit);
+ }
+
+ public Optional<String> getToRef() {
+  return fromNullable(toRef);
+ }
+
+ public Optional<String> getToCommit() {
+  return fromNullable(toCommit);
+ }
+}
@@ -1,48 +1,71 @@
 package se.bjurr.gitchangelog.api;
 
 import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Objects.firstNonNull;
 import static com.google.common.base.Optional.absent;
 import static com.google.common.base.Optional.of;
-import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Throwables.propagate;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.collect.Sets.newLinkedHashSet;
 import static com.google.common.io.Files.createParentDirs;
-import static com.google.common.io.Files.write;
-import static com.google.common.io.Resources.getResource;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.REF_MASTER;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.ZERO_COMMIT;
+import static se.bjurr.gitchangelog.internal.model.ChangelogSnapshot.readSnapshot;
+import static se.bjurr.gitchangelog.internal.model.ChangelogSnapshot.readWatermark;
+import static se.bjurr.gitchangelog.internal.model.ChangelogSnapshot.toKey;
+import static se.bjurr.gitchangelog.internal.model.ChangelogSnapshot.writeSnapshot;
+import static se.bjurr.gitchangelog.internal.model.ChangelogSnapshot.writeWatermark;
 import static se.bjurr.gitchangelog.internal.settings.Settings.fromFile;
+import static se.bjurr.gitchangelog.internal.templates.TemplateCache.templateCache;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.eclipse.jgit.lib.ObjectId;
 
+import se.bjurr.gitchangelog.api.model.Author;
 import se.bjurr.gitchangelog.api.model.Changelog;
+import se.bjurr.gitchangelog.api.model.Commit;
 import se.bjurr.gitchangelog.api.model.Issue;
+import se.bjurr.gitchangelog.api.model.Tag;
+import se.bjurr.gitchangelog.internal.git.GitRange;
 import se.bjurr.gitchangelog.internal.git.GitRepo;
 import se.bjurr.gitchangelog.internal.git.GitRepoData;
 import se.bjurr.gitchangelog.internal.git.model.GitCommit;
 import se.bjurr.gitchangelog.internal.git.model.GitTag;
 import se.bjurr.gitchangelog.internal.integrations.mediawiki.MediaWikiClient;
+import se.bjurr.gitchangelog.internal.issues.IssueIndex;
 import se.bjurr.gitchangelog.internal.issues.IssueParser;
+import se.bjurr.gitchangelog.internal.issues.IssuePipeline;
+import se.bjurr.gitchangelog.internal.model.ChangelogWatermark;
 import se.bjurr.gitchangelog.internal.model.ParsedIssue;
 import se.bjurr.gitchangelog.internal.model.Transformer;
+import se.bjurr.gitchangelog.internal.settings.CompiledPatterns;
 import se.bjurr.gitchangelog.internal.settings.Settings;
 import se.bjurr.gitchangelog.internal.settings.SettingsIssue;
 
-import com.github.mustachejava.DefaultMustacheFactory;
 import com.github.mustachejava.Mustache;
-import com.github.mustachejava.MustacheFactory;
 import com.google.common.base.Optional;
-import com.google.common.io.Files;
-import com.google.common.io.Resources;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
 
 public class GitChangelogApi {
 
@@ -50,6 +73,8 @@ public class GitChangelogApi {
 
  private String templateContent;
 
+ private Executor executor;
+
  public static GitChangelogApi gitChangelogApiBuilder() {
   return new GitChangelogApi();
  }
@@ -278,15 +303,118 @@ public class GitChangelogApi {
  }
 
  /**
-  * Write changelog to file.
+  * If true, the changelog is created while the template is rendered. Each tag,
+  * commit, author and issue is created when the template reaches it, and is
+  * not kept, so a tag can be collected once it is rendered. A template that
+  * visits a list twice creates its elements twice. The commits, tags and issues
+  * found in GIT are still all kept. Render to a {@link Writer}, with
+  * {@link #render(Writer)}, to also avoid keeping the rendered result in
+  * memory.
+  */
+ public GitChangelogApi withStreamingRender(boolean streamingRender) {
+  settings.setStreamingRender(streamingRender);
+  return this;
+ }
+
+ /**
+  * Create the tags of the changelog concurrently on the executor, a
+  * {@link java.util.concurrent.ForkJoinPool} for example. The tags are in the
+  * same order as when created one by one. Not used with
+  * {@link #withStreamingRender(boolean)}. Issues are also looked up in JIRA and
+  * GitHub on the executor, see
+  * {@link #withMaxRequestsInFlightPerServer(int)}. The executor is not shut
+  * down.
+  */
+ public GitChangelogApi withExecutor(Executor executor) {
+  this.executor = executor;
+  return this;
+ }
+
+ /**
+  * The most requests, to look up issues, that are made at the same time
+  * against each of JIRA and GitHub, when an executor is given with
+  * {@link #withExecutor(Executor)}.
+  */
+ public GitChangelogApi withMaxRequestsInFlightPerServer(int maxRequestsInFlightPerServer) {
+  settings.setMaxRequestsInFlightPerServer(maxRequestsInFlightPerServer);
+  return this;
+ }
+
+ /**
+  * If true, the issues of the commits are found while the commits are walked,
+  * in a thread of its own. GitHub and JIRA issues are looked up as soon as they
+  * are found. On the executor, if one is given with
+  * {@link #withExecutor(Executor)}.
+  */
+ public GitChangelogApi withPipelined(boolean pipelined) {
+  settings.setPipelined(pipelined);
+  return this;
+ }
+
+ /**
+  * Store responses from JIRA and GitHub in this directory, and use them in later
+  * builds. Perhaps somewhere in <code>.git</code>.
+  */
+ public GitChangelogApi withRestCacheDirectory(String restCacheDirectory) {
+  settings.setRestCacheDirectory(restCacheDirectory);
+  return this;
+ }
+
+ /**
+  * Minutes that a response in the {@link #withRestCacheDirectory(String)} is
+  * used. Default is a day.
+  */
+ public GitChangelogApi withRestCacheTtlMinutes(int restCacheTtlMinutes) {
+  settings.setRestCacheTtlMinutes(restCacheTtlMinutes);
+  return this;
+ }
+
+ /**
+  * Store the changelog up to the newest tagged commit in this file. Later
+  * builds, of ranges from the same commit with the same settings, only walk
+  * and create what is newer than it. The file is only written again when
+  * there is a newer tagged commit, or the tags changed. If history was
+  * rewritten, or the tags before the stored commit changed, the whole range is
+  * walked again.
+  */
+ public GitChangelogApi withIncrementalStateFile(String incrementalStateFile) {
+  settings.setIncrementalStateFile(incrementalStateFile);
+  return this;
+ }
+
+ /**
+  * Store each changelog in this folder, keyed by its range and the settings
+  * that change it. Rendering the same changelog again, perhaps with another
+  * template, reads it from there instead of from GIT and the issue trackers.
+  * Issues are not looked up again, so use one folder per build.
+  */
+ public GitChangelogApi withSnapshotDirectory(String snapshotDirectory) {
+  settings.setSnapshotDirectory(snapshotDirectory);
+  return this;
+ }
+
+ /**
+  * Write changelog to file, encoded with UTF-8. It is rendered to a temporary
+  * file that replaces the file when done.
   */
  public void toFile(String filePath) {
   try {
-   File file = new File(filePath);
+   File file = new File(filePath).getAbsoluteFile();
    createParentDirs(file);
-   write(render().getBytes(), file);
+   File temp = File.createTempFile("." + file.getName() + "-", ".tmp", file.getParentFile());
+   try {
+    OutputStream outputStream = new FileOutputStream(temp);
+    try {
+     render(outputStream, UTF_8);
+    } finally {
+     outputStream.close();
+    }
+    move(temp.toPath(), file.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+   } finally {
+    temp.delete();
+   }
   } catch (IOException e) {
-   propagate(e);
+   throw propagate(e);
   }
  }
 
@@ -303,62 +431,326 @@ public class GitChangelogApi {
   * Get the changelog as data object.
   */
  public Changelog getChangelog() {
-  return getChangelog(new GitRepo(new File(settings.getFromRepo())));
+  GitRepo gitRepo = newGitRepo();
+  if (!settings.getSnapshotDirectory().isPresent()) {
+   return getChangelogOrIncremental(gitRepo);
+  }
+  String key = toKey(//
+    getFrom(gitRepo, settings.getFromRef(), settings.getFromCommit()), //
+    getTo(gitRepo, settings.getToRef(), settings.getToCommit()), //
+    settings);
+  File snapshot = new File(settings.getSnapshotDirectory().get(), key + ".snapshot");
+  Optional<Changelog> stored = readSnapshot(snapshot);
+  if (stored.isPresent()) {
+   return stored.get();
+  }
+  Changelog changelog = getChangelogOrIncremental(gitRepo);
+  try {
+   writeSnapshot(changelog, snapshot);
+  } catch (IOException e) {
+   throw propagate(e);
+  }
+  return changelog;
  }
 
  /**
   * Get the changelog as rendered string.
   */
  public String render() {
-  try {
-   MustacheFactory mf = new DefaultMustacheFactory();
-   String templateContent = checkNotNull(getTemplateContent(), "No template!");
-   StringReader reader = new StringReader(templateContent);
-   Mustache mustache = mf.compile(reader, settings.getTemplatePath());
+  StringWriter writer = new StringWriter();
+  render(writer);
+  return writer.toString();
+ }
+
+ /**
+  * Render the changelog to the writer. The writer is flushed, but not closed.
+  */
+ public void render(Writer writer) {
+  Mustache mustache = templateCache().getTemplate(settings.getTemplatePath(), templateContent);
+  Changelog changelog;
+  if (settings.isStreamingRender() && !settings.getSnapshotDirectory().isPresent()
+    && !settings.getIncrementalStateFile().isPresent()) {
+   changelog = getStreamingChangelog(newGitRepo());
+  } else {
+   changelog = this.getChangelog();
+  }
+  render(writer, mustache, changelog);
+ }
+
+ /**
+  * Get a changelog for each range. The ranges are walked together, and the
+  * issues of all of them are looked up together. Much faster than one
+  * {@link #getChangelog()} per range, when the ranges overlap or are many.
+  */
+ public List<Changelog> getChangelogs(List<ChangelogRange> ranges) {
+  GitRepo gitRepo = new GitRepo(new File(settings.getFromRepo()));
+  List<GitRange> gitRanges = newArrayList();
+  for (ChangelogRange range : ranges) {
+   gitRanges.add(new GitRange(//
+     getFrom(gitRepo, range.getFromRef(), range.getFromCommit()), //
+     getTo(gitRepo, range.getToRef(), range.getToCommit())));
+  }
+  List<GitRepoData> gitRepoDataPerRange = gitRepo.getGitRepoData(gitRanges, settings.getUntaggedName());
+  Set<GitCommit> allCommits = newLinkedHashSet();
+  for (GitRepoData gitRepoData : gitRepoDataPerRange) {
+   allCommits.addAll(gitRepoData.getGitCommits());
+  }
+  CompiledPatterns compiledPatterns = new CompiledPatterns(settings);
+  Executor lookupExecutor = firstNonNull(executor, sameThreadExecutor());
+  IssueIndex issueIndex = new IssueParser(settings, compiledPatterns, allCommits, lookupExecutor)
+    .parseForIssueIndex();
+  Transformer transformer = new Transformer(settings, compiledPatterns);
+  List<Changelog> changelogs = newArrayList();
+  for (GitRepoData gitRepoData : gitRepoDataPerRange) {
+   changelogs.add(toChangelog(transformer, gitRepoData, issueIndex));
+  }
+  return changelogs;
+ }
+
+ /**
+  * Render a changelog for each range, see {@link #getChangelogs(List)}.
+  */
+ public List<String> render(List<ChangelogRange> ranges) {
+  Mustache mustache = templateCache().getTemplate(settings.getTemplatePath(), templateContent);
+  List<String> rendered = newArrayList();
+  for (Changelog changelog : getChangelogs(ranges)) {
    StringWriter writer = new StringWriter();
+   render(writer, mustache, changelog);
+   rendered.add(writer.toString());
+  }
+  return rendered;
+ }
+
+ /**
+  * Render the changelog to the stream, encoded with the charset. The stream is
+  * flushed, but not closed.
+  */
+ public void render(OutputStream outputStream, Charset charset) {
+  Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, charset));
+  render(writer);
+ }
+
+ private void render(Writer writer, Mustache mustache, Changelog changelog) {
+  try {
    mustache.execute(writer, //
-     new Object[] { this.getChangelog(), settings.getExtendedVariables() } //
+     new Object[] { changelog, settings.getExtendedVariables() } //
      ).flush();
-   return writer.toString();
   } catch (IOException e) {
    throw propagate(e);
   }
  }
 
  private Changelog getChangelog(GitRepo gitRepo) {
-  ObjectId fromId = getId(gitRepo, settings.getFromRef(), settings.getFromCommit()) //
-    .or(gitRepo.getCommit(ZERO_COMMIT));
-  ObjectId toId = getId(gitRepo, settings.getToRef(), settings.getToCommit()) //
-    .or(gitRepo.getRef(REF_MASTER));
-  GitRepoData gitRepoData = gitRepo.getGitRepoData(fromId, toId, settings.getUntaggedName());
+  CompiledPatterns compiledPatterns = new CompiledPatterns(settings);
+  IssuePipeline issuePipeline = parse(gitRepo, compiledPatterns);
+  Transformer transformer = new Transformer(settings, compiledPatterns);
+  return toChangelog(transformer, issuePipeline.getGitRepoData(), issuePipeline.getIssueIndex());
+ }
+
+ private Changelog getChangelogOrIncremental(GitRepo gitRepo) {
+  if (settings.getIncrementalStateFile().isPresent()) {
+   return getIncrementalChangelog(gitRepo, new File(settings.getIncrementalStateFile().get()));
+  }
+  return getChangelog(gitRepo);
+ }
+
+ /**
+  * Like {@link #getChangelog(GitRepo)}, but only what is newer than the stored
+  * watermark is walked and created, and put before the stored changelog. The
+  * whole range is walked if there is no watermark for where it starts and
+  * these settings, if the range does not reach the watermark, or if a tag of a
+  * commit before the watermark was added, moved or removed.
+  */
+ private Changelog getIncrementalChangelog(GitRepo gitRepo, File stateFile) {
+  ObjectId fromId = getFrom(gitRepo, settings.getFromRef(), settings.getFromCommit());
+  ObjectId toId = getTo(gitRepo, settings.getToRef(), settings.getToCommit());
+  String key = toKey(fromId, settings);
+  ListMultimap<ObjectId, String> tagNamesPerCommit = gitRepo.getTagNamesPerCommit();
+  Optional<ChangelogWatermark> stored = readWatermark(stateFile);
+  Optional<GitRepoData> newer = absent();
+  if (stored.isPresent() && stored.get().getKey().equals(key)) {
+   newer = gitRepo.getGitRepoDataAfter(fromId, stored.get().getWatermark(), toId, settings.getUntaggedName());
+   if (newer.isPresent() && isTagChangedUpToWatermark(gitRepo, fromId, stored.get(), tagNamesPerCommit, newer.get())) {
+    newer = absent();
+   }
+  }
+  CompiledPatterns compiledPatterns = new CompiledPatterns(settings);
+  GitRepoData gitRepoData;
+  IssueIndex issueIndex;
+  Changelog older;
+  Set<ObjectId> taggedUpToWatermark;
+  if (newer.isPresent()) {
+   gitRepoData = newer.get();
+   Executor lookupExecutor = firstNonNull(executor, sameThreadExecutor());
+   issueIndex = new IssueParser(settings, compiledPatterns, gitRepoData.getGitCommits(), lookupExecutor)
+     .parseForIssueIndex();
+   older = stored.get().getChangelog();
+   taggedUpToWatermark = stored.get().getTaggedUpToWatermark();
+  } else {
+   IssuePipeline issuePipeline = parse(gitRepo, compiledPatterns);
+   gitRepoData = issuePipeline.getGitRepoData();
+   issueIndex = issuePipeline.getIssueIndex();
+   older = new Changelog(ImmutableList.<Commit> of(), ImmutableList.<Tag> of(), ImmutableList.<Author> of(),
+     ImmutableList.<Issue> of());
+   taggedUpToWatermark = newHashSet();
+  }
+  Transformer transformer = new Transformer(settings, compiledPatterns);
+  Changelog changelog = toChangelog(transformer, gitRepoData, issueIndex, older);
+
+  List<GitCommit> gitCommits = gitRepoData.getGitCommits();
+  int watermark = 0;
+  while (watermark < gitCommits.size() && !tagNamesPerCommit.containsKey(gitCommits.get(watermark).getId())) {
+   watermark++;
+  }
+  try {
+   if (watermark < gitCommits.size()) {
+    ObjectId watermarkId = gitCommits.get(watermark).getId();
+    Optional<GitRepoData> afterWatermark = gitRepo.getGitRepoDataAfter(fromId, watermarkId, toId,
+      settings.getUntaggedName());
+    if (afterWatermark.isPresent() && afterWatermark.get().getGitCommits().equals(gitCommits.subList(0, watermark))) {
+     List<GitCommit> upToWatermark = gitCommits.subList(watermark, gitCommits.size());
+     Set<ObjectId> tagged = newHashSet(taggedUpToWatermark);
+     for (GitCommit gitCommit : upToWatermark) {
+      if (tagNamesPerCommit.containsKey(gitCommit.getId())) {
+       tagged.add(gitCommit.getId());
+      }
+     }
+     Changelog upToWatermarkChangelog = toChangelog(transformer, new GitRepoData(upToWatermark, tagsFrom(
+       gitRepoData.getGitTags(), watermarkId)), issueIndex, older);
+     writeWatermark(new ChangelogWatermark(key, watermarkId, tagNamesPerCommit, tagged, upToWatermarkChangelog),
+       stateFile);
+    } else if (!newer.isPresent()) {
+     stateFile.delete();
+    }
+   } else if (newer.isPresent()) {
+    if (!stored.get().getTagNamesPerCommit().equals(tagNamesPerCommit)) {
+     writeWatermark(new ChangelogWatermark(key, stored.get().getWatermark(), tagNamesPerCommit,
+       taggedUpToWatermark, older), stateFile);
+    }
+   } else {
+    stateFile.delete();
+   }
+  } catch (IOException e) {
+   throw propagate(e);
+  }
+  return changelog;
+ }
+
+ /**
+  * True if a tag of a commit up to the watermark was added, moved or removed
+  * since the watermark was stored. Tags of commits after the watermark, or
+  * outside of the range, do not matter.
+  */
+ private boolean isTagChangedUpToWatermark(GitRepo gitRepo, ObjectId fromId, ChangelogWatermark stored,
+   ListMultimap<ObjectId, String> tagNamesPerCommit, GitRepoData newer) {
+  Set<ObjectId> newerCommits = newHashSet();
+  for (GitCommit gitCommit : newer.getGitCommits()) {
+   newerCommits.add(gitCommit.getId());
+  }
+  Set<ObjectId> tagged = newHashSet(tagNamesPerCommit.keySet());
+  tagged.addAll(stored.getTagNamesPerCommit().keySet());
+  for (ObjectId commit : tagged) {
+   if (stored.getTagNamesPerCommit().get(commit).equals(tagNamesPerCommit.get(commit))) {
+    continue;
+   }
+   if (stored.getTaggedUpToWatermark().contains(commit)) {
+    return true;
+   }
+   if (!newerCommits.contains(commit) && gitRepo.isInRange(fromId, stored.getWatermark(), commit)) {
+    return true;
+   }
+  }
+  return false;
+ }
+
+ /**
+  * The tags from the one of the tagged commit.
+  */
+ private List<GitTag> tagsFrom(List<GitTag> gitTags, ObjectId tagged) {
+  for (int i = 0; i < gitTags.size(); i++) {
+   if (gitTags.get(i).getGitCommits().get(0).getId().equals(tagged)) {
+    return gitTags.subList(i, gitTags.size());
+   }
+  }
+  throw new IllegalStateException(tagged.name() + " is not tagged");
+ }
+
+ /**
+  * The changelog of the newer commits followed by the older changelog.
+  */
+ private Changelog toChangelog(Transformer transformer, GitRepoData newer, IssueIndex issueIndex, Changelog older) {
+  List<GitCommit> diff = newer.getGitCommits();
+  List<Commit> commits = transformer.toCommits(diff);
+  commits.addAll(older.getCommits());
+  List<Tag> tags = toTags(transformer, newer.getGitTags(), issueIndex);
+  tags.addAll(older.getTags());
+  return new Changelog(//
+    commits, //
+    tags, //
+    transformer.toAuthors(diff, older.getAuthors()), //
+    transformer.toIssues(issueIndex.getIssues(diff), older.getIssues()));
+ }
+
+ private Changelog toChangelog(Transformer transformer, GitRepoData gitRepoData, IssueIndex issueIndex) {
   List<GitCommit> diff = gitRepoData.getGitCommits();
   List<GitTag> tags = gitRepoData.getGitTags();
-  List<ParsedIssue> issues = new IssueParser(settings, diff).parseForIssues();
-  Transformer transformer = new Transformer(settings);
+  List<ParsedIssue> issues = issueIndex.getIssues(diff);
   return new Changelog(//
     transformer.toCommits(diff), //
-    transformer.toTags(tags), //
+    toTags(transformer, tags, issueIndex), //
     transformer.toAuthors(diff), //
     transformer.toIssues(issues));
  }
 
- private String getTemplateContent() {
-  if (templateContent != null) {
-   return templateContent;
+ private List<Tag> toTags(Transformer transformer, List<GitTag> tags, IssueIndex issueIndex) {
+  if (executor == null) {
+   return transformer.toTags(tags, issueIndex);
   }
-  checkArgument(settings.getTemplatePath() != null, "You must specify a template!");
-  try {
-   return Resources.toString(getResource(settings.getTemplatePath()), UTF_8);
-  } catch (Exception e) {
-   File file = null;
-   try {
-    file = new File(settings.getTemplatePath());
-    return Files.toString(file, UTF_8);
-   } catch (IOException e2) {
-    throw new RuntimeException("Cannot find on classpath (" + settings.getTemplatePath() + ") or filesystem ("
-      + file.getAbsolutePath() + ").", e2);
-   }
+  return transformer.toTags(tags, issueIndex, executor);
+ }
+
+ private Changelog getStreamingChangelog(GitRepo gitRepo) {
+  CompiledPatterns compiledPatterns = new CompiledPatterns(settings);
+  IssuePipeline issuePipeline = parse(gitRepo, compiledPatterns);
+  List<GitCommit> diff = issuePipeline.getGitRepoData().getGitCommits();
+  List<GitTag> tags = issuePipeline.getGitRepoData().getGitTags();
+  IssueIndex issueIndex = issuePipeline.getIssueIndex();
+  List<ParsedIssue> issues = issueIndex.getIssues(diff);
+  Transformer transformer = new Transformer(settings, compiledPatterns);
+  return new Changelog(//
+    transformer.toCommitsLazily(diff), //
+    transformer.toTagsLazily(tags, issueIndex), //
+    transformer.toAuthorsLazily(diff), //
+    transformer.toIssuesLazily(issues));
+ }
+
+ /**
+  * Walks the range and finds the issues of it. Pipelined, if so configured, or
+  * one after the other.
+  */
+ private IssuePipeline parse(GitRepo gitRepo, CompiledPatterns compiledPatterns) {
+  Executor lookupExecutor = firstNonNull(executor, sameThreadExecutor());
+  IssuePipeline issuePipeline = new IssuePipeline(settings, compiledPatterns, lookupExecutor);
+  ObjectId fromId = getFrom(gitRepo, settings.getFromRef(), settings.getFromCommit());
+  ObjectId toId = getTo(gitRepo, settings.getToRef(), settings.getToCommit());
+  if (settings.isPipelined()) {
+   issuePipeline.run(gitRepo, fromId, toId);
+  } else {
+   issuePipeline.runSequentially(gitRepo, fromId, toId);
   }
+  return issuePipeline;
+ }
+
+ private GitRepo newGitRepo() {
+  return new GitRepo(new File(settings.getFromRepo()));
+ }
+
+ private ObjectId getFrom(GitRepo gitRepo, Optional<String> ref, Optional<String> commit) {
+  return getId(gitRepo, ref, commit).or(gitRepo.getCommit(ZERO_COMMIT));
+ }
+
+ private ObjectId getTo(GitRepo gitRepo, Optional<String> ref, Optional<String> commit) {
+  return getId(gitRepo, ref, commit).or(gitRepo.getRef(REF_MASTER));
  }
 
  private Optional<ObjectId> getId(GitRepo gitRepo, Optional<String> ref, Optional<String> commit) {
@@ -14,6 +14,8 @@ public final class GitChangelogApiConstants {
  public static final String DEFAULT_NO_ISSUE_NAME = "No issue";
  public static final String DEFAULT_GITHUB_ISSUE_PATTERN = "#([0-9]+)";
  public static final String DEFAULT_JIRA_ISSUE_PATTEN = "\\b[a-zA-Z]([a-zA-Z]+)-([0-9]+)\\b";
+ public static final int DEFAULT_MAX_REQUESTS_IN_FLIGHT_PER_SERVER = 4;
+ public static final int DEFAULT_REST_CACHE_TTL_MINUTES = 24 * 60;
 
  private GitChangelogApiConstants() {
  }
@@ -2,11 +2,13 @@ package se.bjurr.gitchangelog.api.model;
 
 import static com.google.common.base.Joiner.on;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Suppliers.ofInstance;
 import static com.google.common.collect.Lists.newArrayList;
 
 import java.util.List;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
 
 public class Commit {
  private final String authorName;
@@ -14,19 +16,31 @@ public class Commit {
  private final String commitTime;
  private final Long commitTimeLong;
  private final String message;
- private final String hash;
+ private final transient Supplier<String> hashSupplier;
+ private String hash;
 
  public Commit(String authorName, String authorEmailAddress, String commitTime, Long commitTimeLong, String message,
    String hash) {
+  this(authorName, authorEmailAddress, commitTime, commitTimeLong, message, ofInstance(checkNotNull(hash, "hash")));
+ }
+
+ /**
+  * The hash is formatted when it is first asked for, most templates never do.
+  */
+ public Commit(String authorName, String authorEmailAddress, String commitTime, Long commitTimeLong, String message,
+   Supplier<String> hash) {
   this.authorName = checkNotNull(authorName, "authorName");
   this.authorEmailAddress = checkNotNull(authorEmailAddress, "authorEmailAddress");
   this.message = checkNotNull(message, "message").trim();
   this.commitTime = checkNotNull(commitTime, "commitTime");
   this.commitTimeLong = checkNotNull(commitTimeLong, "commitTimeLong");
-  this.hash = checkNotNull(hash, "hash");
+  this.hashSupplier = checkNotNull(hash, "hash");
  }
 
  public String getHash() {
+  if (hash == null) {
+   hash = hashSupplier.get();
+  }
   return hash;
  }
 
@@ -117,6 +131,6 @@ public class Commit {
 
  @Override
  public String toString() {
-  return "hash: " + hash + " message: " + message;
+  return "hash: " + getHash() + " message: " + message;
  }
 }
@@ -0,0 +1,72 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import se.bjurr.gitchangelog.internal.git.model.GitCommit;
+
+import com.google.common.collect.AbstractIterator;
+
+/**
+ * Commits handed over, as they are walked, from the thread that walks to the
+ * thread that iterates. The walk waits if the queue is full. Can only be
+ * iterated once.
+ */
+public class GitCommitQueue implements Iterable<GitCommit> {
+ private static final GitCommit END = new GitCommit(null, null, null, null, ObjectId.zeroId());
+ private static final long WAIT_MILLIS = 100;
+
+ private final BlockingQueue<GitCommit> queue;
+ private volatile boolean abandoned;
+
+ public GitCommitQueue(int capacity) {
+  this.queue = new ArrayBlockingQueue<GitCommit>(capacity);
+ }
+
+ void put(GitCommit gitCommit) throws InterruptedException {
+  while (!queue.offer(gitCommit, WAIT_MILLIS, MILLISECONDS)) {
+   if (abandoned) {
+    throw new InterruptedException("Nothing takes the walked commits");
+   }
+  }
+ }
+
+ /**
+  * No more commits will be put, the iteration ends when the queue is empty.
+  */
+ public void close() throws InterruptedException {
+  put(END);
+ }
+
+ /**
+  * Nothing will iterate, so that the walk does not wait for it.
+  */
+ public void abandon() {
+  abandoned = true;
+  queue.clear();
+ }
+
+ @Override
+ public Iterator<GitCommit> iterator() {
+  return new AbstractIterator<GitCommit>() {
+   @Override
+   protected GitCommit computeNext() {
+    try {
+     GitCommit gitCommit = queue.take();
+     if (gitCommit == END) {
+      return endOfData();
+     }
+     return gitCommit;
+    } catch (InterruptedException e) {
+     Thread.currentThread().interrupt();
+     throw new RuntimeException(e);
+    }
+   }
+  };
+ }
+}
@@ -0,0 +1,33 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import se.bjurr.gitchangelog.api.GitChangelogApiConstants;
+
+/**
+ * From, but not including, a commit, to and including another. A from-commit
+ * without parents, as given by {@link GitChangelogApiConstants#ZERO_COMMIT},
+ * is included.
+ */
+public class GitRange {
+ private final ObjectId from;
+ private final ObjectId to;
+
+ public GitRange(ObjectId from, ObjectId to) {
+  this.from = from;
+  this.to = to;
+ }
+
+ public ObjectId getFrom() {
+  return from;
+ }
+
+ public ObjectId getTo() {
+  return to;
+ }
+
+ @Override
+ public String toString() {
+  return from.name() + ".." + to.name();
+ }
+}
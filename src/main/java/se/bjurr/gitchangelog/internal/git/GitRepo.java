@@ -1,38 +1,46 @@
 package se.bjurr.gitchangelog.internal.git;
 
-import static com.google.common.base.Objects.firstNonNull;
+import static com.google.common.base.Optional.absent;
+import static com.google.common.base.Optional.of;
 import static com.google.common.base.Throwables.propagate;
-import static com.google.common.collect.Iterables.transform;
-import static com.google.common.collect.Iterators.getLast;
+import static com.google.common.collect.Iterables.getLast;
 import static com.google.common.collect.Lists.newArrayList;
-import static com.google.common.collect.Lists.transform;
-import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newHashSet;
 import static org.eclipse.jgit.lib.ObjectId.fromString;
+import static org.slf4j.LoggerFactory.getLogger;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.REF_MASTER;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.ZERO_COMMIT;
+import static se.bjurr.gitchangelog.internal.git.PeeledTagIndex.peeledTagIndex;
+import static se.bjurr.gitchangelog.internal.git.RootCommitResolver.rootCommitResolver;
+import static se.bjurr.gitchangelog.internal.git.TagSegmentIndex.tagSegmentIndex;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.slf4j.Logger;
 
 import se.bjurr.gitchangelog.api.GitChangelogApiConstants;
 import se.bjurr.gitchangelog.internal.git.model.GitCommit;
 import se.bjurr.gitchangelog.internal.git.model.GitTag;
 
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.collect.ListMultimap;
 
 public class GitRepo {
+ private static Logger logger = getLogger(GitRepo.class);
  private static final Function<RevCommit, GitCommit> TO_GITCOMMIT = new Function<RevCommit, GitCommit>() {
   @Override
   public GitCommit apply(RevCommit input) {
@@ -41,18 +49,16 @@ public class GitRepo {
      input.getAuthorIdent().getEmailAddress(),//
      new Date(input.getCommitTime() * 1000L),//
      input.getFullMessage(),//
-     toHash(input.getId().getName()));
+     input.getId().copy());
   }
  };
 
- private static String toHash(String input) {
-  return input.substring(0, 15);
- }
-
  private final Repository repository;
+ private final RefIndex refIndex;
 
  public GitRepo() {
   this.repository = null;
+  this.refIndex = null;
  }
 
  public GitRepo(File repo) {
@@ -69,6 +75,7 @@ public class GitRepo {
     throw new RuntimeException("Did not find a GIT repo in " + repo.getAbsolutePath());
    }
    this.repository = builder.build();
+   this.refIndex = new RefIndex(repository);
   } catch (IOException e) {
    throw propagate(e);
   }
@@ -84,37 +91,169 @@ public class GitRepo {
   * @param untaggedName
   */
  public GitRepoData getGitRepoData(ObjectId from, ObjectId to, String untaggedName) {
-  Git git = null;
+  return getGitRepoData(from, to, untaggedName, null);
+ }
+
+ /**
+  * Like {@link #getGitRepoData(ObjectId, ObjectId, String)}, but each commit is
+  * also put on the queue as soon as it is walked. The queue is not closed. A
+  * range between two tags is taken from the {@link TagSegmentIndex}, once the
+  * repository has been asked for more than one, instead of walked.
+  */
+ public GitRepoData getGitRepoData(ObjectId from, ObjectId to, String untaggedName, GitCommitQueue walked) {
   try {
-   git = new Git(repository);
-   List<GitCommit> gitCommits = getGitCommits(git, from, to);
-   return new GitRepoData(gitCommits, gitTags(git, gitCommits, untaggedName));
+   Optional<List<GitCommit>> indexed = tagSegmentIndex(repository).getGitCommits(repository,
+     peeledTagIndex(repository).getTagNamesPerCommit(repository).keySet(), from, to, TO_GITCOMMIT);
+   if (indexed.isPresent()) {
+    if (walked != null) {
+     for (GitCommit gitCommit : indexed.get()) {
+      walked.put(gitCommit);
+     }
+    }
+    return new GitRepoData(indexed.get(), gitTags(indexed.get(), untaggedName));
+   }
+   return walk(from, to, untaggedName, walked);
   } catch (Exception e) {
    throw new RuntimeException(toString(), e);
+  }
+ }
+
+ /**
+  * Like {@link #getGitRepoData(ObjectId, ObjectId, String, GitCommitQueue)},
+  * but always walked, never taken from an index.
+  */
+ GitRepoData walk(ObjectId from, ObjectId to, String untaggedName, GitCommitQueue walked) throws Exception {
+  RevWalk revWalk = new RevWalk(repository);
+  try {
+   List<GitCommit> gitCommits = getGitCommits(revWalk, from, to, walked);
+   return new GitRepoData(gitCommits, gitTags(gitCommits, untaggedName));
   } finally {
-   git.close();
+   revWalk.release();
   }
  }
 
- private List<GitTag> gitTags(Git git, List<GitCommit> gitCommits, String untaggedName) throws Exception {
-  List<GitTag> refs = newArrayList();
-  List<Ref> refList = git.tagList().call();
-  Map<String, Ref> refsPerCommit = newHashMap();
-  for (Ref ref : refList) {
-   refsPerCommit.put(toHash(getPeeled(ref).getName()), ref);
+ /**
+  * Like {@link #getGitRepoData(ObjectId, ObjectId, String)} for each range, but
+  * with one walk over all of them. See {@link MultiRangeWalk}.
+  */
+ public List<GitRepoData> getGitRepoData(List<GitRange> ranges, String untaggedName) {
+  try {
+   List<GitRepoData> gitRepoData = newArrayList();
+   for (List<GitCommit> gitCommits : new MultiRangeWalk(repository, TO_GITCOMMIT).walk(ranges)) {
+    gitRepoData.add(new GitRepoData(gitCommits, gitTags(gitCommits, untaggedName)));
+   }
+   return gitRepoData;
+  } catch (Exception e) {
+   throw new RuntimeException(toString(), e);
   }
+ }
+
+ /**
+  * Like {@link #getGitRepoData(ObjectId, ObjectId, String)}, but only the
+  * commits that the watermark does not reach. They are the first commits of a
+  * walk of the whole range, in the same order. Absent if the watermark is not
+  * in the range, or if a walk of the whole range would not walk all of them
+  * before the watermark, as when a commit is not newer than the watermark.
+  */
+ public Optional<GitRepoData> getGitRepoDataAfter(ObjectId from, ObjectId watermark, ObjectId to,
+   String untaggedName) {
+  RevWalk revWalk = new RevWalk(repository);
+  try {
+   RevCommit watermarkCommit;
+   try {
+    watermarkCommit = revWalk.parseCommit(watermark);
+   } catch (MissingObjectException e) {
+    logger.debug("Not walking from " + watermark.name() + ", it was pruned", e);
+    return absent();
+   }
+   RevCommit fromCommit = revWalk.parseCommit(from);
+   revWalk.markStart(revWalk.parseCommit(to));
+   revWalk.markUninteresting(watermarkCommit);
+   if (fromCommit.getParentCount() > 0) {
+    revWalk.markUninteresting(fromCommit);
+   }
+   List<RevCommit> walked = newArrayList();
+   for (RevCommit revCommit : revWalk) {
+    if (revCommit.getCommitTime() <= watermarkCommit.getCommitTime()) {
+     return absent();
+    }
+    walked.add(revCommit);
+   }
+   Set<RevCommit> walkedSet = newHashSet(walked);
+   boolean reached = to.equals(watermark);
+   List<GitCommit> gitCommits = newArrayList();
+   for (RevCommit revCommit : walked) {
+    for (RevCommit parent : revCommit.getParents()) {
+     revWalk.parseHeaders(parent);
+     if (parent.equals(watermarkCommit)) {
+      reached = true;
+     } else if (!walkedSet.contains(parent) && parent.getCommitTime() >= watermarkCommit.getCommitTime()) {
+      return absent();
+     }
+    }
+    gitCommits.add(TO_GITCOMMIT.apply(revCommit));
+   }
+   if (!reached) {
+    return absent();
+   }
+   return of(new GitRepoData(gitCommits, gitTags(gitCommits, untaggedName)));
+  } catch (Exception e) {
+   throw new RuntimeException(toString(), e);
+  } finally {
+   revWalk.release();
+  }
+ }
+
+ /**
+  * True if the commit is in the range, that is reachable from the to-commit
+  * but not from the from-commit. Only commits are in a range.
+  */
+ public boolean isInRange(ObjectId from, ObjectId to, ObjectId commit) {
+  RevWalk revWalk = new RevWalk(repository);
+  try {
+   RevCommit revCommit = revWalk.parseCommit(commit);
+   RevCommit fromCommit = revWalk.parseCommit(from);
+   if (!revWalk.isMergedInto(revCommit, revWalk.parseCommit(to))) {
+    return false;
+   }
+   return fromCommit.getParentCount() == 0 || !revWalk.isMergedInto(revCommit, fromCommit);
+  } catch (MissingObjectException e) {
+   return false;
+  } catch (IncorrectObjectTypeException e) {
+   return false;
+  } catch (Exception e) {
+   throw new RuntimeException(toString(), e);
+  } finally {
+   revWalk.release();
+  }
+ }
+
+ /**
+  * Tag names, ordered by name, per commit that they point at.
+  */
+ public ListMultimap<ObjectId, String> getTagNamesPerCommit() {
+  try {
+   return peeledTagIndex(repository).getTagNamesPerCommit(repository);
+  } catch (IOException e) {
+   throw propagate(e);
+  }
+ }
+
+ private List<GitTag> gitTags(List<GitCommit> gitCommits, String untaggedName) throws Exception {
+  List<GitTag> refs = newArrayList();
+  ListMultimap<ObjectId, String> tagNamesPerCommit = peeledTagIndex(repository).getTagNamesPerCommit(repository);
 
   String currentTagName = untaggedName;
   List<GitCommit> gitCommitsInCurrentTag = newArrayList();
   for (GitCommit gitCommit : gitCommits) {
-   if (refsPerCommit.containsKey(gitCommit.getHash())) {
+   if (tagNamesPerCommit.containsKey(gitCommit.getId())) {
     if (!gitCommitsInCurrentTag.isEmpty()) {
      GitTag newTag = new GitTag(currentTagName, gitCommitsInCurrentTag);
      refs.add(newTag);
      gitCommitsInCurrentTag = newArrayList();
     }
-    if (refsPerCommit.containsKey(gitCommit.getHash())) {
-     currentTagName = refsPerCommit.get(gitCommit.getHash()).getName();
+    if (tagNamesPerCommit.containsKey(gitCommit.getId())) {
+     currentTagName = getLast(tagNamesPerCommit.get(gitCommit.getId()));
     } else {
      currentTagName = untaggedName;
     }
@@ -129,56 +268,45 @@ public class GitRepo {
   return refs;
  }
 
- private List<GitCommit> getGitCommits(Git git, ObjectId from, ObjectId to) throws Exception {
-  final List<RevCommit> toList = newArrayList(git.log().add(to).call());
-  if (from.name().equals(firstCommit().name())) {
-   return newArrayList(transform(toList, TO_GITCOMMIT));
+ /**
+  * Walks the range once. The from-commit is marked uninteresting, so history
+  * that is reachable from it is never visited. A root commit as from-commit,
+  * as given by {@link GitChangelogApiConstants#ZERO_COMMIT}, is included.
+  */
+ private List<GitCommit> getGitCommits(RevWalk revWalk, ObjectId from, ObjectId to, GitCommitQueue walked)
+   throws Exception {
+  RevCommit fromCommit = revWalk.parseCommit(from);
+  revWalk.markStart(revWalk.parseCommit(to));
+  if (fromCommit.getParentCount() > 0) {
+   revWalk.markUninteresting(fromCommit);
   }
 
-  Iterable<RevCommit> itr = git //
-    .log() //
-    .addRange(from, to) //
-    .call();
-
-  return newArrayList(transform(itr, TO_GITCOMMIT));
- }
-
- private ObjectId getPeeled(Ref ref) {
-  Ref peeledRef = repository.peel(ref);
-  if (peeledRef.getPeeledObjectId() != null) {
-   return peeledRef.getPeeledObjectId();
-  } else {
-   return ref.getObjectId();
+  List<GitCommit> gitCommits = newArrayList();
+  for (RevCommit revCommit : revWalk) {
+   GitCommit gitCommit = TO_GITCOMMIT.apply(revCommit);
+   gitCommits.add(gitCommit);
+   if (walked != null) {
+    walked.put(gitCommit);
+   }
   }
+  return gitCommits;
  }
 
  public ObjectId getRef(String fromRef) {
+  Optional<ObjectId> found;
   try {
-   for (Ref foundRef : getAllRefs().values()) {
-    if (foundRef.getName().endsWith(fromRef)) {
-     Ref ref = getAllRefs().get(foundRef.getName());
-     Git git = null;
-     try {
-      git = new Git(repository);
-      Ref peeledRef = repository.peel(ref);
-      if (peeledRef.getPeeledObjectId() != null) {
-       return peeledRef.getPeeledObjectId();
-      } else {
-       return ref.getObjectId();
-      }
-     } finally {
-      git.close();
-     }
-    }
-   }
-   throw new RuntimeException(fromRef + " not found in:\n" + toString());
+   found = refIndex.findPeeled(fromRef);
   } catch (Exception e) {
    throw new RuntimeException("", e);
   }
+  if (!found.isPresent()) {
+   throw new RuntimeException(fromRef + " not found in:\n" + toString());
+  }
+  return found.get();
  }
 
  private Map<String, Ref> getAllRefs() {
-  return repository.getAllRefs();
+  return refIndex.getRefs();
  }
 
  public ObjectId getCommit(String fromCommit) {
@@ -188,17 +316,12 @@ public class GitRepo {
   return fromString(fromCommit);
  }
 
- private RevCommit firstCommit() {
-  Git git = null;
+ private ObjectId firstCommit() {
   try {
-   git = new Git(repository);
-   AnyObjectId master = getRef(REF_MASTER);
-   Iterator<RevCommit> itr = git.log().add(master).call().iterator();
-   return getLast(itr);
+   ObjectId master = getRef(REF_MASTER);
+   return rootCommitResolver(repository).getRootCommit(repository, master);
   } catch (Exception e) {
    throw new RuntimeException("First commit not found in " + repository.getDirectory(), e);
-  } finally {
-   git.close();
   }
  }
 
@@ -209,7 +332,7 @@ public class GitRepo {
     + "Refs: \n";
   Map<String, Ref> allRefs = getAllRefs();
   for (String k : allRefs.keySet()) {
-   ObjectId pealed = firstNonNull(allRefs.get(k).getPeeledObjectId(), pealed = allRefs.get(k).getObjectId());
+   ObjectId pealed = refIndex.getPeeled(allRefs.get(k));
    s += "Ref: " + k + " -> " + pealed.name() + "\n";
   }
   return s;
@@ -0,0 +1,224 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.collect.Sets.newLinkedHashSet;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevFlagSet;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+
+import se.bjurr.gitchangelog.internal.git.model.GitCommit;
+
+import com.google.common.base.Function;
+
+/**
+ * Commits of several ranges, found with one walk over the union of them. Every
+ * endpoint of a range gets a {@link RevFlag} that is carried, while walking,
+ * to all commits reachable from it. A commit is in a range if it has the flag of the
+ * to-commit, but not the flag of the from-commit. History that is reachable
+ * from every from-commit is in no range, and is not walked. It is marked
+ * uninteresting, so like a walk of a single range, this may include commits
+ * reachable from a from-commit when commit times are skewed.
+ */
+class MultiRangeWalk {
+ /**
+  * A {@link RevWalk} has room for 26 flags of its own. Ranges are walked in
+  * chunks with at most this many endpoints each.
+  */
+ static final int MAX_FLAGS_PER_WALK = 24;
+
+ private final Repository repository;
+ private final Function<RevCommit, GitCommit> toGitCommit;
+ /**
+  * Commits that are in more than one range are converted once.
+  */
+ private final Map<ObjectId, GitCommit> gitCommits = newHashMap();
+
+ MultiRangeWalk(Repository repository, Function<RevCommit, GitCommit> toGitCommit) {
+  this.repository = repository;
+  this.toGitCommit = toGitCommit;
+ }
+
+ /**
+  * Commits of each range, in the same order as if the range was walked by
+  * itself.
+  */
+ List<List<GitCommit>> walk(List<GitRange> ranges) throws IOException {
+  List<List<GitCommit>> commitsPerRange = newArrayList();
+  List<GitRange> chunk = newArrayList();
+  Set<ObjectId> chunkEndpoints = newHashSet();
+  for (GitRange range : ranges) {
+   Set<ObjectId> endpoints = newHashSet(chunkEndpoints);
+   endpoints.add(range.getFrom());
+   endpoints.add(range.getTo());
+   if (endpoints.size() > MAX_FLAGS_PER_WALK) {
+    commitsPerRange.addAll(walkChunk(chunk));
+    chunk = newArrayList();
+    endpoints = newHashSet(newArrayList(range.getFrom(), range.getTo()));
+   }
+   chunk.add(range);
+   chunkEndpoints = endpoints;
+  }
+  if (!chunk.isEmpty()) {
+   commitsPerRange.addAll(walkChunk(chunk));
+  }
+  return commitsPerRange;
+ }
+
+ private List<List<GitCommit>> walkChunk(List<GitRange> ranges) throws IOException {
+  RevWalk revWalk = new RevWalk(repository);
+  try {
+   Set<RevCommit> floor = findFloor(revWalk, ranges);
+   revWalk.reset();
+   revWalk.setRevFilter(RevFilter.ALL);
+
+   Map<RevCommit, RevFlag> flags = newHashMap();
+   RevFlagSet allFlags = new RevFlagSet();
+   List<RevCommit> tos = newArrayList();
+   List<RevCommit> froms = newArrayList();
+   for (GitRange range : ranges) {
+    RevCommit to = revWalk.parseCommit(range.getTo());
+    RevCommit from = revWalk.parseCommit(range.getFrom());
+    tos.add(to);
+    froms.add(from);
+    addFlag(revWalk, flags, allFlags, to);
+    if (from.getParentCount() > 0) {
+     addFlag(revWalk, flags, allFlags, from);
+    }
+   }
+   for (RevCommit commit : floor) {
+    revWalk.markUninteresting(commit);
+   }
+   revWalk.sort(RevSort.TOPO);
+
+   Set<RevCommit> walked = newHashSet();
+   for (RevCommit commit : revWalk) {
+    walked.add(commit);
+    carryFlags(commit, allFlags);
+   }
+
+   List<List<GitCommit>> commitsPerRange = newArrayList();
+   for (int i = 0; i < ranges.size(); i++) {
+    RevFlag fromFlag = froms.get(i).getParentCount() > 0 ? flags.get(froms.get(i)) : null;
+    commitsPerRange.add(walkRange(walked, tos.get(i), flags.get(tos.get(i)), fromFlag));
+   }
+   return commitsPerRange;
+  } finally {
+   revWalk.release();
+  }
+ }
+
+ /**
+  * Children are walked before their parents, so the flags of a commit are
+  * complete when it is walked. {@link RevWalk#carry(RevFlagSet)} is not used,
+  * it misses commits when commit times are not in order.
+  */
+ private void carryFlags(RevCommit commit, RevFlagSet allFlags) {
+  for (RevFlag flag : allFlags) {
+   if (commit.has(flag)) {
+    for (RevCommit parent : commit.getParents()) {
+     parent.add(flag);
+    }
+   }
+  }
+ }
+
+ private void addFlag(RevWalk revWalk, Map<RevCommit, RevFlag> flags, RevFlagSet allFlags, RevCommit commit)
+   throws IOException {
+  if (flags.containsKey(commit)) {
+   return;
+  }
+  RevFlag flag = revWalk.newFlag(commit.name());
+  commit.add(flag);
+  flags.put(commit, flag);
+  allFlags.add(flag);
+  revWalk.markStart(commit);
+ }
+
+ /**
+  * Commits reachable from every from-commit, and so in no range. None if any
+  * range includes its from-commit.
+  */
+ private Set<RevCommit> findFloor(RevWalk revWalk, List<GitRange> ranges) throws IOException {
+  Set<RevCommit> froms = newLinkedHashSet();
+  for (GitRange range : ranges) {
+   RevCommit from = revWalk.parseCommit(range.getFrom());
+   if (from.getParentCount() == 0) {
+    return newHashSet();
+   }
+   froms.add(from);
+  }
+  if (froms.size() == 1) {
+   return froms;
+  }
+  revWalk.setRevFilter(RevFilter.MERGE_BASE);
+  for (RevCommit from : froms) {
+   revWalk.markStart(from);
+  }
+  Set<RevCommit> mergeBases = newHashSet();
+  for (RevCommit mergeBase : revWalk) {
+   mergeBases.add(mergeBase);
+  }
+  return mergeBases;
+ }
+
+ /**
+  * Orders the commits of the range like a {@link RevWalk} of only the range
+  * would.
+  */
+ private List<GitCommit> walkRange(final Set<RevCommit> walked, RevCommit to, final RevFlag toFlag,
+   final RevFlag fromFlag) {
+  List<GitCommit> commits = newArrayList();
+  if (!isInRange(walked, to, toFlag, fromFlag)) {
+   return commits;
+  }
+  List<RevCommit> inRange = new WalkOrder<RevCommit>() {
+   @Override
+   int getCommitTime(RevCommit commit) {
+    return commit.getCommitTime();
+   }
+
+   @Override
+   Iterable<RevCommit> getParents(RevCommit commit) {
+    List<RevCommit> parents = newArrayList();
+    for (RevCommit parent : commit.getParents()) {
+     if (isInRange(walked, parent, toFlag, fromFlag)) {
+      parents.add(parent);
+     }
+    }
+    return parents;
+   }
+  }.walk(to);
+  for (RevCommit commit : inRange) {
+   commits.add(toGitCommit(commit));
+  }
+  return commits;
+ }
+
+ private boolean isInRange(Set<RevCommit> walked, RevCommit commit, RevFlag toFlag, RevFlag fromFlag) {
+  return walked.contains(commit) //
+    && commit.has(toFlag) //
+    && (fromFlag == null || !commit.has(fromFlag));
+ }
+
+ private GitCommit toGitCommit(RevCommit commit) {
+  GitCommit gitCommit = gitCommits.get(commit);
+  if (gitCommit == null) {
+   gitCommit = toGitCommit.apply(commit);
+   gitCommits.put(commit.copy(), gitCommit);
+  }
+  return gitCommit;
+ }
+}
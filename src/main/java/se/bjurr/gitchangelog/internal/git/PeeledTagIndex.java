@@ -0,0 +1,91 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.cache.CacheBuilder.newBuilder;
+import static com.google.common.collect.Maps.newHashMap;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.eclipse.jgit.lib.Constants.R_TAGS;
+import static se.bjurr.gitchangelog.internal.git.RefsSnapshot.refsSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableListMultimap.Builder;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * Tags per commit, with tags peeled to the commit they point at. Kept per
+ * repository, while it is used and memory allows, and rebuilt only when the
+ * {@link RefsSnapshot} changes. A tag is only peeled again if it is moved.
+ */
+class PeeledTagIndex {
+ private static final long EXPIRE_AFTER_ACCESS_MINUTES = 10;
+ private static final Cache<File, PeeledTagIndex> indexes = newBuilder() //
+   .expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, MINUTES) //
+   .softValues() //
+   .build();
+
+ private RefsSnapshot snapshot;
+ private ListMultimap<ObjectId, String> tagNamesPerCommit;
+ private Map<ObjectId, ObjectId> peeledPerTagObject = newHashMap();
+
+ private PeeledTagIndex() {
+ }
+
+ static PeeledTagIndex peeledTagIndex(Repository repository) {
+  try {
+   return indexes.get(repository.getDirectory().getAbsoluteFile(), new Callable<PeeledTagIndex>() {
+    @Override
+    public PeeledTagIndex call() {
+     return new PeeledTagIndex();
+    }
+   });
+  } catch (ExecutionException e) {
+   throw propagate(e.getCause());
+  }
+ }
+
+ /**
+  * Tag names, ordered by name, per commit.
+  */
+ synchronized ListMultimap<ObjectId, String> getTagNamesPerCommit(Repository repository) throws IOException {
+  if (snapshot != null && !snapshot.isModified()) {
+   return tagNamesPerCommit;
+  }
+  RefsSnapshot current = refsSnapshot(repository);
+  Map<ObjectId, ObjectId> peeledPerTagObjectUpdated = newHashMap();
+  Builder<ObjectId, String> builder = ImmutableListMultimap.builder();
+  Map<String, Ref> tags = ImmutableSortedMap.copyOf(repository.getRefDatabase().getRefs(R_TAGS));
+  for (Ref tag : tags.values()) {
+   ObjectId tagObject = tag.getObjectId();
+   ObjectId peeled = peeledPerTagObject.get(tagObject);
+   if (peeled == null) {
+    peeled = getPeeled(repository, tag);
+   }
+   peeledPerTagObjectUpdated.put(tagObject, peeled);
+   builder.put(peeled, tag.getName());
+  }
+  peeledPerTagObject = peeledPerTagObjectUpdated;
+  tagNamesPerCommit = builder.build();
+  snapshot = current;
+  return tagNamesPerCommit;
+ }
+
+ private ObjectId getPeeled(Repository repository, Ref ref) {
+  Ref peeledRef = repository.peel(ref);
+  if (peeledRef.getPeeledObjectId() != null) {
+   return peeledRef.getPeeledObjectId();
+  }
+  return ref.getObjectId();
+ }
+}
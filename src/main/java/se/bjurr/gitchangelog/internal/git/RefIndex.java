@@ -0,0 +1,103 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static com.google.common.base.Optional.absent;
+import static com.google.common.base.Optional.of;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+import static se.bjurr.gitchangelog.internal.git.RefsSnapshot.refsSnapshot;
+
+import java.util.Map;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+import com.google.common.base.Optional;
+
+/**
+ * Lookup of refs by name suffix. The refs are read once, and read again only
+ * when the {@link RefsSnapshot} of the repository changes. Peeled ids are
+ * resolved when first asked for.
+ */
+class RefIndex {
+ private final Repository repository;
+ private RefsSnapshot snapshot;
+ /**
+  * All refs, ordered by name.
+  */
+ private Map<String, Ref> refs;
+ /**
+  * Every suffix, that starts after a slash, of every ref name. Mapped to the
+  * first ref, ordered by name, with that suffix.
+  */
+ private Map<String, Ref> refsBySuffix;
+ private Map<String, ObjectId> peeledByName;
+
+ RefIndex(Repository repository) {
+  this.repository = repository;
+ }
+
+ synchronized Map<String, Ref> getRefs() {
+  refreshIfChanged();
+  return refs;
+ }
+
+ /**
+  * The peeled id of the first ref, ordered by name, that ends with the given
+  * string.
+  */
+ synchronized Optional<ObjectId> findPeeled(String suffix) {
+  refreshIfChanged();
+  Ref found = refsBySuffix.get(suffix);
+  if (found == null) {
+   for (Ref candidate : refs.values()) {
+    if (candidate.getName().endsWith(suffix)) {
+     found = candidate;
+     break;
+    }
+   }
+  }
+  if (found == null) {
+   return absent();
+  }
+  return of(getPeeled(found));
+ }
+
+ synchronized ObjectId getPeeled(Ref ref) {
+  ObjectId peeled = peeledByName.get(ref.getName());
+  if (peeled == null) {
+   Ref peeledRef = repository.peel(ref);
+   if (peeledRef.getPeeledObjectId() != null) {
+    peeled = peeledRef.getPeeledObjectId();
+   } else {
+    peeled = ref.getObjectId();
+   }
+   peeledByName.put(ref.getName(), peeled);
+  }
+  return peeled;
+ }
+
+ private void refreshIfChanged() {
+  if (snapshot != null && !snapshot.isModified()) {
+   return;
+  }
+  RefsSnapshot current = refsSnapshot(repository);
+  Map<String, Ref> allRefs = repository.getAllRefs();
+  refs = newLinkedHashMap(allRefs);
+  refsBySuffix = newHashMap();
+  for (Ref ref : refs.values()) {
+   String name = ref.getName();
+   if (!refsBySuffix.containsKey(name)) {
+    refsBySuffix.put(name, ref);
+   }
+   for (int slash = name.indexOf('/'); slash != -1; slash = name.indexOf('/', slash + 1)) {
+    String suffix = name.substring(slash + 1);
+    if (!refsBySuffix.containsKey(suffix)) {
+     refsBySuffix.put(suffix, ref);
+    }
+   }
+  }
+  peeledByName = newHashMap();
+  snapshot = current;
+ }
+}
@@ -0,0 +1,88 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static com.google.common.collect.Maps.newLinkedHashMap;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Modification times and lengths of the ref storage of a repository. That is
+ * <code>packed-refs</code>, <code>HEAD</code> and every directory below
+ * <code>refs</code>. Git renames a lock file over the loose ref when updating
+ * it, so a changed loose ref changes its directory. The directories are only
+ * listed when the snapshot is taken, checking it does not look at any loose
+ * ref.
+ */
+class RefsSnapshot {
+ /**
+  * Some file systems store modification times in whole seconds, or coarser. A
+  * change in the same tick as the snapshot cannot be told apart from it, so a
+  * file modified this close to the snapshot counts as modified.
+  */
+ private static final long RACY_MILLIS = 2500;
+
+ private static class FileState {
+  private final long lastModified;
+  private final long length;
+
+  FileState(File file) {
+   this.lastModified = file.lastModified();
+   this.length = file.length();
+  }
+ }
+
+ private final Map<File, FileState> states;
+ private final long taken;
+
+ private RefsSnapshot(Map<File, FileState> states, long taken) {
+  this.states = states;
+  this.taken = taken;
+ }
+
+ static RefsSnapshot refsSnapshot(Repository repository) {
+  long taken = System.currentTimeMillis();
+  File gitDir = repository.getDirectory();
+  Map<File, FileState> states = newLinkedHashMap();
+  addState(states, new File(gitDir, "packed-refs"));
+  addState(states, new File(gitDir, "HEAD"));
+  addDirectoryStates(states, new File(gitDir, "refs"));
+  return new RefsSnapshot(states, taken);
+ }
+
+ /**
+  * True if a ref may have changed since the snapshot was taken.
+  */
+ boolean isModified() {
+  for (Entry<File, FileState> entry : states.entrySet()) {
+   FileState state = entry.getValue();
+   if (state.lastModified > taken - RACY_MILLIS) {
+    return true;
+   }
+   File file = entry.getKey();
+   if (file.lastModified() != state.lastModified || file.length() != state.length) {
+    return true;
+   }
+  }
+  return false;
+ }
+
+ private static void addState(Map<File, FileState> states, File file) {
+  states.put(file, new FileState(file));
+ }
+
+ private static void addDirectoryStates(Map<File, FileState> states, File directory) {
+  addState(states, directory);
+  File[] children = directory.listFiles();
+  if (children == null) {
+   return;
+  }
+  for (File child : children) {
+   if (child.isDirectory()) {
+    addDirectoryStates(states, child);
+   }
+  }
+ }
+}
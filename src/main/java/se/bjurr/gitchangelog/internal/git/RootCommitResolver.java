@@ -0,0 +1,116 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.cache.CacheBuilder.newBuilder;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+
+import com.google.common.cache.Cache;
+
+/**
+ * Finds the root commit, the last commit without parents, of a tip. The result
+ * is remembered per repository, while it is used and memory allows, and only
+ * resolved again when the tip changes.
+ */
+class RootCommitResolver {
+ private static final long EXPIRE_AFTER_ACCESS_MINUTES = 10;
+ private static final Cache<File, RootCommitResolver> resolvers = newBuilder() //
+   .expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, MINUTES) //
+   .softValues() //
+   .build();
+
+ private static final RevFilter NO_PARENTS = new RevFilter() {
+  @Override
+  public boolean include(RevWalk walker, RevCommit c) {
+   return c.getParentCount() == 0;
+  }
+
+  @Override
+  public RevFilter clone() {
+   return this;
+  }
+
+  @Override
+  public boolean requiresCommitBody() {
+   return false;
+  }
+ };
+
+ private ObjectId resolvedTip;
+ private ObjectId rootCommit;
+
+ private RootCommitResolver() {
+ }
+
+ static RootCommitResolver rootCommitResolver(Repository repository) {
+  try {
+   return resolvers.get(repository.getDirectory().getAbsoluteFile(), new Callable<RootCommitResolver>() {
+    @Override
+    public RootCommitResolver call() {
+     return new RootCommitResolver();
+    }
+   });
+  } catch (ExecutionException e) {
+   throw propagate(e.getCause());
+  }
+ }
+
+ synchronized ObjectId getRootCommit(Repository repository, ObjectId tip) throws IOException {
+  if (tip.equals(resolvedTip)) {
+   return rootCommit;
+  }
+  RevWalk revWalk = new RevWalk(repository);
+  try {
+   revWalk.setRetainBody(false);
+   revWalk.setRevFilter(NO_PARENTS);
+   RevCommit tipCommit = revWalk.parseCommit(tip);
+   if (resolvedTip == null || !isFastForward(revWalk, tipCommit)) {
+    revWalk.markStart(tipCommit);
+    rootCommit = findLast(revWalk);
+   }
+   resolvedTip = tip.copy();
+   return rootCommit;
+  } finally {
+   revWalk.release();
+  }
+ }
+
+ /**
+  * If the previous tip is included in the new one, and no new root commit was
+  * added in between, the root commit is still the same.
+  */
+ private boolean isFastForward(RevWalk revWalk, RevCommit tipCommit) throws IOException {
+  RevCommit previousTip = revWalk.parseCommit(resolvedTip);
+  boolean isMerged = revWalk.isMergedInto(previousTip, tipCommit);
+  revWalk.reset();
+  if (!isMerged) {
+   return false;
+  }
+  revWalk.markStart(tipCommit);
+  revWalk.markUninteresting(previousTip);
+  boolean newRoots = revWalk.next() != null;
+  revWalk.reset();
+  return !newRoots;
+ }
+
+ private ObjectId findLast(RevWalk revWalk) throws IOException {
+  RevCommit last = null;
+  for (RevCommit candidate : revWalk) {
+   last = candidate;
+  }
+  if (last == null) {
+   throw new IOException("No commit without parents found");
+  }
+  return last.copy();
+ }
+}
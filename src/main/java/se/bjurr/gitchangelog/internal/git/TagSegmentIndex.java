@@ -0,0 +1,316 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static com.google.common.base.Optional.absent;
+import static com.google.common.base.Optional.of;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.cache.CacheBuilder.newBuilder;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.collect.Sets.newLinkedHashSet;
+import static java.util.Collections.disjoint;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.slf4j.Logger;
+
+import se.bjurr.gitchangelog.internal.git.model.GitCommit;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+
+/**
+ * The history of all tags of a repository, kept in memory, so that a range
+ * between two tags is found without reading the repository. Each tag has a
+ * segment, the commits that it reaches but that none of the tags before it
+ * reaches. A range is the segments of the tags that the to-commit reaches but
+ * the from-commit does not. Each time a tag appears, only the history that is
+ * new to the index is walked. Kept per repository, while it is used and memory
+ * allows.
+ */
+class TagSegmentIndex {
+ private static final Logger logger = getLogger(TagSegmentIndex.class);
+ private static final long EXPIRE_AFTER_ACCESS_MINUTES = 10;
+ private static final Cache<File, TagSegmentIndex> indexes = newBuilder() //
+   .expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, MINUTES) //
+   .softValues() //
+   .build();
+
+ private static class Node {
+  private final GitCommit gitCommit;
+  private final ObjectId[] parents;
+  private final int commitTime;
+  /**
+   * The tags with this commit in their segment. Most commits are in one.
+   */
+  private final List<ObjectId> tags = newArrayList();
+
+  Node(GitCommit gitCommit, ObjectId[] parents, int commitTime) {
+   this.gitCommit = gitCommit;
+   this.parents = parents;
+   this.commitTime = commitTime;
+  }
+ }
+
+ private static class Segment {
+  private final List<ObjectId> commits;
+  /**
+   * The nearest tags that the tag reaches.
+   */
+  private final Set<ObjectId> previousTags;
+
+  Segment(List<ObjectId> commits, Set<ObjectId> previousTags) {
+   this.commits = commits;
+   this.previousTags = previousTags;
+  }
+ }
+
+ /**
+  * Every commit reachable from a tag.
+  */
+ private final Map<ObjectId, Node> nodes = newHashMap();
+ private final Map<ObjectId, Segment> segments = newHashMap();
+ /**
+  * The first range is walked, the index only pays off when the repository is
+  * asked for more ranges.
+  */
+ private boolean asked;
+
+ private TagSegmentIndex() {
+ }
+
+ static TagSegmentIndex tagSegmentIndex(Repository repository) {
+  try {
+   return indexes.get(repository.getDirectory().getAbsoluteFile(), new Callable<TagSegmentIndex>() {
+    @Override
+    public TagSegmentIndex call() {
+     return new TagSegmentIndex();
+    }
+   });
+  } catch (ExecutionException e) {
+   throw propagate(e.getCause());
+  }
+ }
+
+ /**
+  * Commits of the range, in the same order as a {@link RevWalk} of it. Absent
+  * if the range is not between two tagged commits, or if it is the first range
+  * asked for.
+  */
+ synchronized Optional<List<GitCommit>> getGitCommits(Repository repository, Collection<ObjectId> tagged,
+   ObjectId from, ObjectId to, Function<RevCommit, GitCommit> toGitCommit) throws IOException {
+  if (!tagged.contains(from) || !tagged.contains(to)) {
+   return absent();
+  }
+  if (!asked) {
+   asked = true;
+   return absent();
+  }
+  addTags(repository, tagged, toGitCommit);
+  if (!segments.containsKey(from) || !segments.containsKey(to)) {
+   return absent();
+  }
+  Set<ObjectId> fromTags = newHashSet();
+  if (nodes.get(from).parents.length > 0) {
+   fromTags = reachedTags(from);
+  }
+  final Set<ObjectId> inRange = newHashSet();
+  for (ObjectId tag : reachedTags(to)) {
+   if (!fromTags.contains(tag)) {
+    for (ObjectId commit : segments.get(tag).commits) {
+     List<ObjectId> tagsOfCommit = nodes.get(commit).tags;
+     if (tagsOfCommit.size() == 1 || disjoint(tagsOfCommit, fromTags)) {
+      inRange.add(commit);
+     }
+    }
+   }
+  }
+  List<GitCommit> gitCommits = newArrayList();
+  if (!inRange.contains(to)) {
+   return of(gitCommits);
+  }
+  List<Node> walked = new WalkOrder<Node>() {
+   @Override
+   int getCommitTime(Node node) {
+    return node.commitTime;
+   }
+
+   @Override
+   Iterable<Node> getParents(Node node) {
+    List<Node> parents = newArrayList();
+    for (ObjectId parent : node.parents) {
+     if (inRange.contains(parent)) {
+      parents.add(nodes.get(parent));
+     }
+    }
+    return parents;
+   }
+  }.walk(nodes.get(to));
+  for (Node node : walked) {
+   gitCommits.add(node.gitCommit);
+  }
+  return of(gitCommits);
+ }
+
+ synchronized int size() {
+  return nodes.size();
+ }
+
+ /**
+  * Walks the history that is new to the index and finds the segments of the
+  * new tags. Tags that are no longer in the repository are kept, but not
+  * walked. If a new tag is in history that was already walked, the segments of
+  * the tags after it change, and all are found again.
+  */
+ private void addTags(Repository repository, Collection<ObjectId> tagged, Function<RevCommit, GitCommit> toGitCommit)
+   throws IOException {
+  Set<ObjectId> added = newLinkedHashSet();
+  boolean inKnownHistory = false;
+  for (ObjectId tag : tagged) {
+   if (!segments.containsKey(tag) && repository.hasObject(tag)) {
+    added.add(tag.copy());
+    inKnownHistory |= nodes.containsKey(tag);
+   }
+  }
+  if (added.isEmpty()) {
+   return;
+  }
+  RevWalk revWalk = new RevWalk(repository);
+  try {
+   List<ObjectId> commits = newArrayList();
+   for (ObjectId tag : added) {
+    RevObject object = revWalk.parseAny(tag);
+    if (object instanceof RevCommit) {
+     revWalk.markStart((RevCommit) object);
+     commits.add(tag);
+    }
+   }
+   for (ObjectId tag : segments.keySet()) {
+    try {
+     revWalk.markUninteresting(revWalk.parseCommit(tag));
+    } catch (MissingObjectException e) {
+     logger.debug("Not walking " + tag.name() + ", it was pruned", e);
+    }
+   }
+   for (RevCommit commit : revWalk) {
+    if (!nodes.containsKey(commit)) {
+     ObjectId[] parents = new ObjectId[commit.getParentCount()];
+     for (int i = 0; i < parents.length; i++) {
+      parents[i] = commit.getParent(i).copy();
+     }
+     nodes.put(commit.copy(), new Node(toGitCommit.apply(commit), parents, commit.getCommitTime()));
+    }
+   }
+   if (inKnownHistory) {
+    commits.addAll(segments.keySet());
+    segments.clear();
+    for (Node node : nodes.values()) {
+     node.tags.clear();
+    }
+   }
+   addSegments(commits);
+  } finally {
+   revWalk.release();
+  }
+ }
+
+ /**
+  * A segment is what the tag reaches without passing another tag, except what
+  * is also in the segment of a tag that it reaches. So the segments of the
+  * previous tags are found first.
+  */
+ private void addSegments(List<ObjectId> added) {
+  Set<ObjectId> tags = newHashSet(segments.keySet());
+  tags.addAll(added);
+  Map<ObjectId, List<ObjectId>> reached = newHashMap();
+  Map<ObjectId, Set<ObjectId>> previousTags = newHashMap();
+  for (ObjectId tag : added) {
+   List<ObjectId> commits = newArrayList();
+   Set<ObjectId> previous = newHashSet();
+   Set<ObjectId> seen = newHashSet(tag);
+   List<ObjectId> pending = newArrayList(tag);
+   while (!pending.isEmpty()) {
+    ObjectId commit = pending.remove(pending.size() - 1);
+    commits.add(commit);
+    for (ObjectId parent : nodes.get(commit).parents) {
+     if (seen.add(parent)) {
+      if (tags.contains(parent)) {
+       previous.add(parent);
+      } else {
+       pending.add(parent);
+      }
+     }
+    }
+   }
+   reached.put(tag, commits);
+   previousTags.put(tag, previous);
+  }
+  List<ObjectId> pending = newArrayList(added);
+  while (!pending.isEmpty()) {
+   ObjectId tag = pending.get(pending.size() - 1);
+   if (segments.containsKey(tag)) {
+    pending.remove(pending.size() - 1);
+    continue;
+   }
+   boolean previousFound = true;
+   for (ObjectId previous : previousTags.get(tag)) {
+    if (!segments.containsKey(previous)) {
+     pending.add(previous);
+     previousFound = false;
+    }
+   }
+   if (previousFound) {
+    pending.remove(pending.size() - 1);
+    addSegment(tag, reached.get(tag), previousTags.get(tag));
+   }
+  }
+ }
+
+ private void addSegment(ObjectId tag, List<ObjectId> reached, Set<ObjectId> previousTags) {
+  Set<ObjectId> before = newHashSet();
+  for (ObjectId previous : previousTags) {
+   before.addAll(reachedTags(previous));
+  }
+  List<ObjectId> commits = newArrayList();
+  for (ObjectId commit : reached) {
+   List<ObjectId> tagsOfCommit = nodes.get(commit).tags;
+   if (disjoint(tagsOfCommit, before)) {
+    tagsOfCommit.add(tag);
+    commits.add(commit);
+   }
+  }
+  segments.put(tag, new Segment(commits, previousTags));
+ }
+
+ /**
+  * The tag and all tags that it reaches.
+  */
+ private Set<ObjectId> reachedTags(ObjectId tag) {
+  Set<ObjectId> reached = newHashSet(tag);
+  List<ObjectId> pending = newArrayList(tag);
+  while (!pending.isEmpty()) {
+   for (ObjectId previous : segments.get(pending.remove(pending.size() - 1)).previousTags) {
+    if (reached.add(previous)) {
+     pending.add(previous);
+    }
+   }
+  }
+  return reached;
+ }
+}
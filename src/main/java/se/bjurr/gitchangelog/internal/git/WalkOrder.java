@@ -0,0 +1,69 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newHashSet;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Orders commits that were found without a {@link RevWalk} like one would:
+ * newest first, and the first found first if equally old.
+ */
+abstract class WalkOrder<C> {
+ private static final Comparator<Queued<?>> WALK_ORDER = new Comparator<Queued<?>>() {
+  @Override
+  public int compare(Queued<?> o1, Queued<?> o2) {
+   if (o1.commitTime != o2.commitTime) {
+    return o1.commitTime > o2.commitTime ? -1 : 1;
+   }
+   return o1.found < o2.found ? -1 : o1.found == o2.found ? 0 : 1;
+  }
+ };
+
+ private static class Queued<C> {
+  private final C commit;
+  private final int commitTime;
+  private final long found;
+
+  Queued(C commit, int commitTime, long found) {
+   this.commit = commit;
+   this.commitTime = commitTime;
+   this.found = found;
+  }
+ }
+
+ abstract int getCommitTime(C commit);
+
+ /**
+  * The parents of the commit that are walked.
+  */
+ abstract Iterable<C> getParents(C commit);
+
+ /**
+  * The commit, and every commit reachable from it through
+  * {@link #getParents(Object)}.
+  */
+ List<C> walk(C start) {
+  List<C> commits = newArrayList();
+  PriorityQueue<Queued<C>> queue = new PriorityQueue<Queued<C>>(64, WALK_ORDER);
+  Set<C> seen = newHashSet();
+  long found = 0;
+  queue.add(new Queued<C>(start, getCommitTime(start), found++));
+  seen.add(start);
+  while (!queue.isEmpty()) {
+   C commit = queue.poll().commit;
+   commits.add(commit);
+   for (C parent : getParents(commit)) {
+    if (seen.add(parent)) {
+     queue.add(new Queued<C>(parent, getCommitTime(parent), found++));
+    }
+   }
+  }
+  return commits;
+ }
+}
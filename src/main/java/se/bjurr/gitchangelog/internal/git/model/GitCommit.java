@@ -4,25 +4,48 @@ import static com.google.common.base.Objects.toStringHelper;
 
 import java.util.Date;
 
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
 public class GitCommit {
+ private static final int HASH_LENGTH = 15;
+
  private final String authorName;
  private final String authorEmailAddress;
  private final Date commitTime;
  private final String message;
- private final String hash;
+ private final ObjectId id;
+ private String hash;
 
- public GitCommit(String authorName, String authorEmailAddress, Date commitTime, String message, String hash) {
+ public GitCommit(String authorName, String authorEmailAddress, Date commitTime, String message, ObjectId id) {
   this.authorEmailAddress = authorEmailAddress;
   this.authorName = authorName;
   this.commitTime = commitTime;
   this.message = message;
-  this.hash = hash;
+  this.id = id;
+ }
+
+ public ObjectId getId() {
+  return id;
  }
 
+ /**
+  * Abbreviated id, formatted on the first call.
+  */
  public String getHash() {
+  if (hash == null) {
+   hash = toHash(id);
+  }
   return hash;
  }
 
+ /**
+  * Abbreviated id of a commit.
+  */
+ public static String toHash(AnyObjectId id) {
+  return id.abbreviate(HASH_LENGTH).name();
+ }
+
  public String getAuthorEmailAddress() {
   return authorEmailAddress;
  }
@@ -42,7 +65,7 @@ public class GitCommit {
  @Override
  public String toString() {
   return toStringHelper(this)//
-    .add("hash", hash)//
+    .add("hash", getHash())//
     .add("authorName", authorName)//
     .add("authorEmailAddress", authorEmailAddress)//
     .add("commitTime", commitTime)//
@@ -52,13 +75,13 @@ public class GitCommit {
 
  @Override
  public int hashCode() {
-  return hash.hashCode();
+  return id.hashCode();
  }
 
  @Override
  public boolean equals(Object obj) {
   if (obj.getClass() == GitCommit.class) {
-   return ((GitCommit) obj).getHash().equals(hash);
+   return ((GitCommit) obj).getId().equals(id);
   }
   return false;
  }
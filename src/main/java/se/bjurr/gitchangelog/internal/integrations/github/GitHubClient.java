@@ -1,49 +1,38 @@
 package se.bjurr.gitchangelog.internal.integrations.github;
 
 import static com.google.common.base.Optional.absent;
-import static com.google.common.base.Optional.of;
 import static java.util.concurrent.TimeUnit.MINUTES;
-import static org.slf4j.LoggerFactory.getLogger;
+import static se.bjurr.gitchangelog.internal.integrations.github.GitHubIssueIndex.toNumber;
 
-import java.util.LinkedHashMap;
-
-import net.minidev.json.JSONArray;
-
-import org.slf4j.Logger;
+import java.util.concurrent.TimeUnit;
 
 import se.bjurr.gitchangelog.internal.integrations.rest.RestClient;
+import se.bjurr.gitchangelog.internal.integrations.rest.RestDiskCache;
 
 import com.google.common.base.Optional;
-import com.jayway.jsonpath.JsonPath;
 
 public class GitHubClient {
- private static Logger logger = getLogger(GitHubClient.class);
-
- private final String api;
  private final RestClient client;
+ private final GitHubIssueIndex issueIndex;
 
  public GitHubClient(String api) {
-  this.api = api;
   this.client = new RestClient(1, MINUTES);
+  this.issueIndex = new GitHubIssueIndex(api, client, MINUTES.toMillis(1));
+ }
+
+ /**
+  * Store responses in the disk cache, for as long as given by the duration.
+  */
+ public GitHubClient withDiskCache(RestDiskCache diskCache, long duration, TimeUnit unit) {
+  client.withDiskCache(diskCache, duration, unit);
+  return this;
  }
 
  public Optional<GitHubIssue> getIssue(String issue) {
-  if (issue.startsWith("#")) {
-   issue = issue.substring(1);
-  }
-  Optional<String> json = client.get(api + "/issues?state=all");
-  if (json.isPresent()) {
-   JSONArray jsonArray = (JSONArray) JsonPath.read(json.get(), "$.*");
-   for (Object jsonIssue : jsonArray) {
-    LinkedHashMap o = (LinkedHashMap) jsonIssue;
-    String htmlUrl = o.get("html_url").toString();
-    String title = o.get("title").toString();
-    String number = o.get("number").toString();
-    if (number.equals(issue)) {
-     return of(new GitHubIssue(title, htmlUrl, number));
-    }
-   }
+  Optional<Integer> number = toNumber(issue);
+  if (!number.isPresent()) {
+   return absent();
   }
-  return absent();
+  return issueIndex.getIssue(number.get());
  }
 }
@@ -0,0 +1,108 @@
+package se.bjurr.gitchangelog.internal.integrations.github;
+
+import static com.google.common.base.Optional.absent;
+import static com.google.common.base.Optional.fromNullable;
+import static com.jayway.jsonpath.JsonPath.read;
+import static java.lang.Math.max;
+import static java.util.Arrays.copyOf;
+
+import java.util.List;
+
+import se.bjurr.gitchangelog.internal.integrations.rest.RestClient;
+
+import com.google.common.base.Optional;
+
+/**
+ * All issues of a repository, by number. Every page of issues is read once.
+ * When an issue is not found, issues updated since the last read are read
+ * again, at most once per refresh interval.
+ */
+class GitHubIssueIndex {
+ static final int ISSUES_PER_PAGE = 100;
+
+ private final String api;
+ private final RestClient client;
+ private final long refreshIntervalMillis;
+ /**
+  * Indexed by number. Issues and pull requests of a repository share one
+  * sequence of numbers, starting at 1, so the array is dense.
+  */
+ private GitHubIssue[] issuesByNumber = new GitHubIssue[ISSUES_PER_PAGE + 1];
+ /**
+  * The latest <code>updated_at</code> that has been read.
+  */
+ private String updatedAt;
+ private long lastRead;
+ private boolean read;
+
+ GitHubIssueIndex(String api, RestClient client, long refreshIntervalMillis) {
+  this.api = api;
+  this.client = client;
+  this.refreshIntervalMillis = refreshIntervalMillis;
+ }
+
+ synchronized Optional<GitHubIssue> getIssue(int number) {
+  if (!read) {
+   readIssues("");
+   read = true;
+  } else if (findIssue(number) == null
+    && System.currentTimeMillis() - lastRead >= refreshIntervalMillis) {
+   if (updatedAt == null) {
+    readIssues("");
+   } else {
+    readIssues("&since=" + updatedAt);
+   }
+  }
+  return fromNullable(findIssue(number));
+ }
+
+ private GitHubIssue findIssue(int number) {
+  if (number < 0 || number >= issuesByNumber.length) {
+   return null;
+  }
+  return issuesByNumber[number];
+ }
+
+ private void readIssues(String since) {
+  lastRead = System.currentTimeMillis();
+  for (int page = 1;; page++) {
+   Optional<String> json = client.get(api + "/issues?state=all&per_page=" + ISSUES_PER_PAGE + since + "&page="
+     + page);
+   if (!json.isPresent() || addIssues(json.get()) < ISSUES_PER_PAGE) {
+    return;
+   }
+  }
+ }
+
+ private int addIssues(String json) {
+  List<Integer> numbers = read(json, "$[*].number");
+  List<String> titles = read(json, "$[*].title");
+  List<String> htmlUrls = read(json, "$[*].html_url");
+  List<String> updatedAts = read(json, "$[*].updated_at");
+  for (int i = 0; i < numbers.size(); i++) {
+   int number = numbers.get(i);
+   if (number >= issuesByNumber.length) {
+    issuesByNumber = copyOf(issuesByNumber, max(number + 1, issuesByNumber.length * 2));
+   }
+   if (number >= 0) {
+    issuesByNumber[number] = new GitHubIssue(titles.get(i), htmlUrls.get(i), Integer.toString(number));
+   }
+   String issueUpdatedAt = updatedAts.get(i);
+   if (issueUpdatedAt != null && (updatedAt == null || issueUpdatedAt.compareTo(updatedAt) > 0)) {
+    updatedAt = issueUpdatedAt;
+   }
+  }
+  return numbers.size();
+ }
+
+ static Optional<Integer> toNumber(String issue) {
+  if (issue.startsWith("#")) {
+   issue = issue.substring(1);
+  }
+  try {
+   return Optional.of(Integer.valueOf(issue));
+  } catch (NumberFormatException e) {
+   return absent();
+  }
+ }
+}
@@ -2,12 +2,27 @@ package se.bjurr.gitchangelog.internal.integrations.jira;
 
 import static com.google.common.base.Optional.absent;
 import static com.google.common.base.Optional.of;
+import static com.google.common.collect.Iterables.partition;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newTreeSet;
 import static java.util.concurrent.TimeUnit.MINUTES;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 import se.bjurr.gitchangelog.internal.integrations.rest.RestClient;
+import se.bjurr.gitchangelog.internal.integrations.rest.RestDiskCache;
 
 import com.google.common.base.Optional;
 
 public class DefaultJiraClient extends JiraClient {
+ /**
+  * Issues per search request. Also the default, and common, upper limit of
+  * <code>maxResults</code> in JIRA.
+  */
+ public static final int ISSUES_PER_SEARCH = 50;
 
  private RestClient client;
 
@@ -21,6 +36,11 @@ public class DefaultJiraClient extends JiraClient {
   this.client = client.withBasicAuthCredentials(username, password);
  }
 
+ @Override
+ public void withDiskCache(RestDiskCache diskCache, long duration, TimeUnit unit) {
+  this.client = client.withDiskCache(diskCache, duration, unit);
+ }
+
  @Override
  public Optional<JiraIssue> getIssue(String issue) {
   String endpoint = getEndpoint(issue);
@@ -32,4 +52,33 @@ public class DefaultJiraClient extends JiraClient {
   return absent();
  }
 
+ /**
+  * Searches for the issues, sorted by key, in pages of
+  * {@value #ISSUES_PER_SEARCH}. JIRA fails the whole search if any key does not
+  * exist, and leaves out issues that were moved, so issues not found by the
+  * search are resolved with {@link #getIssue(String)}.
+  */
+ @Override
+ public Map<String, JiraIssue> getIssues(Collection<String> issues) {
+  Map<String, JiraIssue> found = newHashMap();
+  for (List<String> page : partition(newTreeSet(issues), ISSUES_PER_SEARCH)) {
+   Optional<String> json = client.get(getSearchEndpoint(page));
+   Map<String, JiraIssue> foundInPage = newHashMap();
+   if (json.isPresent()) {
+    foundInPage = toJiraIssues(json.get());
+   }
+   for (String issue : page) {
+    if (foundInPage.containsKey(issue)) {
+     found.put(issue, foundInPage.get(issue));
+    } else {
+     Optional<JiraIssue> jiraIssue = getIssue(issue);
+     if (jiraIssue.isPresent()) {
+      found.put(issue, jiraIssue.get());
+     }
+    }
+   }
+  }
+  return found;
+ }
+
 }
@@ -1,6 +1,18 @@
 package se.bjurr.gitchangelog.internal.integrations.jira;
 
+import static com.google.common.base.Joiner.on;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.collect.Maps.newHashMap;
 import static com.jayway.jsonpath.JsonPath.read;
+import static java.net.URLEncoder.encode;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import se.bjurr.gitchangelog.internal.integrations.rest.RestDiskCache;
 
 import com.google.common.base.Optional;
 
@@ -21,6 +33,15 @@ public abstract class JiraClient {
   return endpoint;
  }
 
+ protected String getSearchEndpoint(List<String> issues) {
+  try {
+   String jql = "key in (" + on(",").join(issues) + ")";
+   return api + "/rest/api/2/search?jql=" + encode(jql, "UTF-8") + "&fields=summary&maxResults=" + issues.size();
+  } catch (UnsupportedEncodingException e) {
+   throw propagate(e);
+  }
+ }
+
  protected JiraIssue toJiraIssue(String issue, String json) {
   String title = read(json, "$.fields.summary");
   String link = api + "/browse/";
@@ -28,8 +49,44 @@ public abstract class JiraClient {
   return jiraIssue;
  }
 
+ /**
+  * The issues found in a search response, per key.
+  */
+ protected Map<String, JiraIssue> toJiraIssues(String json) {
+  List<String> keys = read(json, "$.issues[*].key");
+  List<String> titles = read(json, "$.issues[*].fields.summary");
+  String link = api + "/browse/";
+  Map<String, JiraIssue> jiraIssues = newHashMap();
+  for (int i = 0; i < keys.size(); i++) {
+   jiraIssues.put(keys.get(i), new JiraIssue(titles.get(i), link, keys.get(i)));
+  }
+  return jiraIssues;
+ }
+
  public abstract void withBasicCredentials(String username, String password);
 
+ /**
+  * Store responses in the disk cache, for as long as given by the duration.
+  * Ignored unless overridden.
+  */
+ public void withDiskCache(RestDiskCache diskCache, long duration, TimeUnit unit) {
+ }
+
  public abstract Optional<JiraIssue> getIssue(String matched);
 
+ /**
+  * The issues that were found, per key. Resolves them one at a time, clients
+  * that can ask for several issues at once should override this.
+  */
+ public Map<String, JiraIssue> getIssues(Collection<String> issues) {
+  Map<String, JiraIssue> found = newHashMap();
+  for (String issue : issues) {
+   Optional<JiraIssue> jiraIssue = getIssue(issue);
+   if (jiraIssue.isPresent()) {
+    found.put(issue, jiraIssue.get());
+   }
+  }
+  return found;
+ }
+
 }
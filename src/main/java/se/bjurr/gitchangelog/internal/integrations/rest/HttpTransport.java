@@ -0,0 +1,76 @@
+package se.bjurr.gitchangelog.internal.integrations.rest;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.io.ByteStreams.toByteArray;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads responses so that the connection can be kept alive. The JDK returns a
+ * connection to its keep-alive pool only when the response, or error, stream
+ * has been read to the end and closed.
+ */
+class HttpTransport {
+ private HttpTransport() {
+ }
+
+ /**
+  * Sets the deadlines and asks for a compressed response.
+  */
+ static void prepare(HttpURLConnection conn, int connectTimeoutMillis, int readTimeoutMillis) {
+  conn.setConnectTimeout(connectTimeoutMillis);
+  conn.setReadTimeout(readTimeoutMillis);
+  conn.setRequestProperty("Accept-Encoding", "gzip");
+ }
+
+ /**
+  * The body, decompressed if needed. If the server responded with an error,
+  * the error stream is drained before the exception is thrown.
+  */
+ static String readBody(HttpURLConnection conn) throws IOException {
+  InputStream inputStream;
+  try {
+   inputStream = conn.getInputStream();
+  } catch (IOException e) {
+   discard(conn.getErrorStream());
+   throw e;
+  }
+  try {
+   if ("gzip".equalsIgnoreCase(conn.getContentEncoding())) {
+    return new String(toByteArray(new GZIPInputStream(inputStream)), UTF_8);
+   }
+   return new String(toByteArray(inputStream), UTF_8);
+  } finally {
+   inputStream.close();
+  }
+ }
+
+ /**
+  * Drains a response that is not used, like a <code>304 Not Modified</code>.
+  */
+ static void discard(HttpURLConnection conn) {
+  try {
+   discard(conn.getInputStream());
+  } catch (IOException e) {
+   discard(conn.getErrorStream());
+  }
+ }
+
+ private static void discard(InputStream stream) {
+  if (stream == null) {
+   return;
+  }
+  try {
+   try {
+    toByteArray(stream);
+   } finally {
+    stream.close();
+   }
+  } catch (IOException e) {
+   // The connection will not be reused
+  }
+ }
+}
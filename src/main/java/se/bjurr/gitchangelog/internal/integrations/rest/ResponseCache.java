@@ -0,0 +1,122 @@
+package se.bjurr.gitchangelog.internal.integrations.rest;
+
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.cache.CacheBuilder.newBuilder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+/**
+ * Responses of all {@link RestClient}s in the process. Keyed by
+ * {@link RestDiskCache#toKey(String, String)}, so that clients with different
+ * credentials do not share responses. Bounded by the approximate number of
+ * bytes that the responses occupy. Expired responses are kept until loaded
+ * again, so that they can be validated with the server.
+ */
+public class ResponseCache {
+ public static final long DEFAULT_MAXIMUM_WEIGHT_BYTES = 32 * 1024 * 1024;
+
+ private final Cache<String, CachedResponse> cache;
+
+ /**
+  * Loads a response, given the expired one, if any.
+  */
+ interface Loader {
+  Optional<RestResponse> load(RestResponse stale) throws Exception;
+ }
+
+ static class CachedResponse {
+  private final Optional<RestResponse> response;
+  private final long loadedMillis;
+
+  CachedResponse(Optional<RestResponse> response, long loadedMillis) {
+   this.response = response;
+   this.loadedMillis = loadedMillis;
+  }
+
+  Optional<RestResponse> getResponse() {
+   return response;
+  }
+
+  long getLoadedMillis() {
+   return loadedMillis;
+  }
+ }
+
+ private static final Weigher<String, CachedResponse> BYTES = new Weigher<String, CachedResponse>() {
+  @Override
+  public int weigh(String key, CachedResponse value) {
+   int length = key.length();
+   if (value.getResponse().isPresent()) {
+    RestResponse response = value.getResponse().get();
+    length += response.getBody().length() + response.getETag().or("").length()
+      + response.getLastModified().or("").length();
+   }
+   return 64 + 2 * length;
+  }
+ };
+
+ private static ResponseCache responseCache = new ResponseCache(DEFAULT_MAXIMUM_WEIGHT_BYTES);
+
+ ResponseCache(long maximumWeightBytes) {
+  cache = newBuilder()//
+    .maximumWeight(maximumWeightBytes)//
+    .weigher(BYTES)//
+    .recordStats()//
+    .build();
+ }
+
+ public static synchronized ResponseCache responseCache() {
+  return responseCache;
+ }
+
+ /**
+  * Replaces the shared cache with an empty one of the given size.
+  */
+ public static synchronized void setMaximumWeightBytes(long maximumWeightBytes) {
+  responseCache = new ResponseCache(maximumWeightBytes);
+ }
+
+ /**
+  * Hits, misses and evictions since the cache was created.
+  */
+ public CacheStats getStats() {
+  return cache.stats();
+ }
+
+ /**
+  * The cached response, if loaded less than <code>maxAgeMillis</code> ago.
+  * Otherwise loaded again, given the expired response. Concurrent requests for
+  * the same key wait for one load.
+  */
+ Optional<RestResponse> get(String key, long maxAgeMillis, Loader loader) {
+  try {
+   CachedResponse cached = cache.get(key, load(loader, null));
+   if (System.currentTimeMillis() - cached.getLoadedMillis() >= maxAgeMillis) {
+    cache.asMap().remove(key, cached);
+    cached = cache.get(key, load(loader, cached.getResponse().orNull()));
+   }
+   return cached.getResponse();
+  } catch (ExecutionException e) {
+   throw propagate(e.getCause());
+  }
+ }
+
+ private static Callable<CachedResponse> load(final Loader loader, final RestResponse stale) {
+  return new Callable<CachedResponse>() {
+   @Override
+   public CachedResponse call() throws Exception {
+    return new CachedResponse(loader.load(stale), System.currentTimeMillis());
+   }
+  };
+ }
+
+ void invalidateAll() {
+  cache.invalidateAll();
+ }
+}
@@ -2,39 +2,43 @@ package se.bjurr.gitchangelog.internal.integrations.rest;
 
 import static com.google.common.base.Optional.absent;
 import static com.google.common.base.Optional.of;
-import static com.google.common.base.Throwables.propagate;
-import static com.google.common.cache.CacheBuilder.newBuilder;
-import static com.google.common.io.ByteStreams.toByteArray;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static javax.xml.bind.DatatypeConverter.printBase64Binary;
 import static org.slf4j.LoggerFactory.getLogger;
+import static se.bjurr.gitchangelog.internal.integrations.rest.HttpTransport.discard;
+import static se.bjurr.gitchangelog.internal.integrations.rest.HttpTransport.prepare;
+import static se.bjurr.gitchangelog.internal.integrations.rest.HttpTransport.readBody;
+import static se.bjurr.gitchangelog.internal.integrations.rest.ResponseCache.responseCache;
 
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 
+import se.bjurr.gitchangelog.internal.integrations.rest.ResponseCache.Loader;
+
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 
 public class RestClient {
  private static Logger logger = getLogger(RestClient.class);
  private static RestClient mockedRestClient;
- private final LoadingCache<String, Optional<String>> urlCache;
+ public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10 * 1000;
+ public static final int DEFAULT_READ_TIMEOUT_MILLIS = 60 * 1000;
+ private final long cacheMaxAgeMillis;
  private String basicAuthString;
+ private RestDiskCache diskCache;
+ private long diskCacheTtlMillis;
+ private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+ private int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
 
- public RestClient(long duration, TimeUnit cacheExpireAfterAccess) {
-  urlCache = newBuilder()//
-    .expireAfterAccess(duration, cacheExpireAfterAccess)//
-    .build(new CacheLoader<String, Optional<String>>() {
-     @Override
-     public Optional<String> load(String url) throws Exception {
-      return doGet(url);
-     }
-    });
+ /**
+  * Responses are kept in the shared {@link ResponseCache} for as long as given
+  * by the duration.
+  */
+ public RestClient(long duration, TimeUnit unit) {
+  this.cacheMaxAgeMillis = unit.toMillis(duration);
  }
 
  public RestClient withBasicAuthCredentials(String username, String password) {
@@ -42,26 +46,107 @@ public class RestClient {
   return this;
  }
 
- public Optional<String> get(String url) {
-  try {
-   return urlCache.get(url);
-  } catch (ExecutionException e) {
-   throw propagate(e);
+ /**
+  * Responses are also stored in, and read from, the disk cache. For as long as
+  * given by the duration.
+  */
+ public RestClient withDiskCache(RestDiskCache diskCache, long duration, TimeUnit unit) {
+  this.diskCache = diskCache;
+  this.diskCacheTtlMillis = unit.toMillis(duration);
+  return this;
+ }
+
+ /**
+  * A server that does not accept the connection, or stops sending, within
+  * these times gives no response.
+  */
+ public RestClient withTimeouts(long connectTimeout, long readTimeout, TimeUnit unit) {
+  this.connectTimeoutMillis = (int) unit.toMillis(connectTimeout);
+  this.readTimeoutMillis = (int) unit.toMillis(readTimeout);
+  return this;
+ }
+
+ public Optional<String> get(final String url) {
+  final String key = RestDiskCache.toKey(url, basicAuthString);
+  Optional<RestResponse> response;
+  if (cacheMaxAgeMillis <= 0) {
+   response = getCached(url, key, null);
+  } else {
+   Loader loader = new Loader() {
+    @Override
+    public Optional<RestResponse> load(RestResponse stale) {
+     return getCached(url, key, stale);
+    }
+   };
+   response = responseCache().get(key, cacheMaxAgeMillis, loader);
   }
+  if (!response.isPresent()) {
+   return absent();
+  }
+  return of(response.get().getBody());
  }
 
- private Optional<String> doGet(String urlParam) {
+ /**
+  * A fresh response from the disk cache is used as is. An older response, from
+  * disk or expired from the response cache, is validated with the server and
+  * reused if it answers <code>304 Not Modified</code>.
+  */
+ private Optional<RestResponse> getCached(String url, String key, RestResponse expired) {
+  if (diskCache != null) {
+   Optional<RestResponse> cached = diskCache.get(key, diskCacheTtlMillis);
+   if (cached.isPresent()) {
+    return cached;
+   }
+  }
+  RestResponse stale = getStale(key, expired);
+  Optional<RestResponse> response = doGet(url, stale);
+  if (response.isPresent() && diskCache != null) {
+   if (response.get() == stale) {
+    diskCache.touch(key);
+   } else {
+    diskCache.put(key, response.get());
+   }
+  }
+  return response;
+ }
+
+ private RestResponse getStale(String key, RestResponse expired) {
+  if (expired != null && expired.hasValidators()) {
+   return expired;
+  }
+  if (diskCache != null) {
+   return diskCache.getStale(key).orNull();
+  }
+  return null;
+ }
+
+ private Optional<RestResponse> doGet(String urlParam, RestResponse stale) {
   String response = null;
   try {
    logger.info("GET:\n" + urlParam);
    URL url = new URL(urlParam);
    HttpURLConnection conn = openConnection(url);
+   prepare(conn, connectTimeoutMillis, readTimeoutMillis);
    conn.setRequestProperty("Content-Type", "application/json");
    conn.setRequestProperty("Accept", "application/json");
    if (this.basicAuthString != null) {
     conn.setRequestProperty("Authorization", "Basic " + basicAuthString);
    }
-   return of(getResponse(conn));
+   if (stale != null) {
+    if (stale.getETag().isPresent()) {
+     conn.setRequestProperty("If-None-Match", stale.getETag().get());
+    }
+    if (stale.getLastModified().isPresent()) {
+     conn.setRequestProperty("If-Modified-Since", stale.getLastModified().get());
+    }
+    if (conn.getResponseCode() == HTTP_NOT_MODIFIED) {
+     logger.info("Not modified:\n" + urlParam);
+     discard(conn);
+     return of(stale);
+    }
+   }
+   response = getResponse(conn);
+   return of(new RestResponse(response, conn.getHeaderField("ETag"), conn.getHeaderField("Last-Modified")));
   } catch (Exception e) {
    logger.error("Got:\n" + response, e);
    return absent();
@@ -79,12 +164,13 @@ public class RestClient {
  @VisibleForTesting
  protected String getResponse(HttpURLConnection conn) throws Exception {
   if (mockedRestClient == null) {
-   return new String(toByteArray(conn.getInputStream()));
+   return readBody(conn);
   }
   return mockedRestClient.getResponse(conn);
  }
 
  public static void mock(RestClient mock) {
   mockedRestClient = mock;
+  responseCache().invalidateAll();
  }
 }
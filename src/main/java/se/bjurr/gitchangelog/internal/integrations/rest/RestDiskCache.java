@@ -0,0 +1,293 @@
+package se.bjurr.gitchangelog.internal.integrations.rest;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Optional.absent;
+import static com.google.common.base.Optional.of;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.collect.Maps.newHashMap;
+import static java.nio.file.Files.readAttributes;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+
+import com.google.common.base.Optional;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Responses stored in a directory, so that they survive the JVM. Each response
+ * is a file of its own, written to a temporary file and moved into place. The
+ * time each response was stored is appended to an index file, under a lock, so
+ * that only the index is read to know what is cached. The index is compacted
+ * when most of it is outdated, and once per instance. Responses that have
+ * expired are then deleted.
+ */
+public class RestDiskCache {
+ private static final Logger logger = getLogger(RestDiskCache.class);
+ private static final ConcurrentMap<File, RestDiskCache> caches = new ConcurrentHashMap<File, RestDiskCache>();
+ private static final String INDEX = "index";
+ private static final String LOCK = "index.lock";
+ private static final String SUFFIX = ".response";
+ private static final Gson gson = new Gson();
+
+ private final File directory;
+ /**
+  * Time stored, per key, as read from the index.
+  */
+ private final Map<String, Long> storedPerKey = newHashMap();
+ private long indexLinesRead;
+ private long indexBytesRead;
+ /**
+  * Identifies the index file that was read, it is replaced when compacted.
+  */
+ private Object indexFileKey;
+ /**
+  * Longest time to live asked for, responses older than that are deleted when
+  * the index is compacted. Zero if not known.
+  */
+ private long longestTtlMillis;
+ private boolean compactedOnce;
+
+ RestDiskCache(File directory) {
+  this.directory = directory;
+ }
+
+ public static RestDiskCache restDiskCache(File directory) {
+  File absoluteDirectory = directory.getAbsoluteFile();
+  caches.putIfAbsent(absoluteDirectory, new RestDiskCache(absoluteDirectory));
+  return caches.get(absoluteDirectory);
+ }
+
+ /**
+  * Key of the URL, requested with the credentials. The credentials are only
+  * stored as part of the hash.
+  */
+ static String toKey(String url, String credentials) {
+  try {
+   MessageDigest digest = MessageDigest.getInstance("SHA-1");
+   digest.update(url.getBytes(UTF_8));
+   digest.update((byte) 0);
+   if (credentials != null) {
+    digest.update(credentials.getBytes(UTF_8));
+   }
+   StringBuilder key = new StringBuilder();
+   for (byte b : digest.digest()) {
+    key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+   }
+   return key.toString();
+  } catch (Exception e) {
+   throw propagate(e);
+  }
+ }
+
+ /**
+  * The response, if it was stored less than <code>ttlMillis</code> ago.
+  */
+ public synchronized Optional<RestResponse> get(String key, long ttlMillis) {
+  longestTtlMillis = Math.max(longestTtlMillis, ttlMillis);
+  try {
+   Long stored = storedPerKey.get(key);
+   if (stored == null || isExpired(stored, ttlMillis)) {
+    readIndex();
+    stored = storedPerKey.get(key);
+   }
+   if (stored == null || isExpired(stored, ttlMillis)) {
+    return absent();
+   }
+   return readResponse(key);
+  } catch (IOException e) {
+   logger.warn("Cannot read " + key + " from " + directory, e);
+   return absent();
+  }
+ }
+
+ /**
+  * The response, no matter when it was stored. To be validated with the
+  * server before it is used.
+  */
+ public synchronized Optional<RestResponse> getStale(String key) {
+  try {
+   return readResponse(key);
+  } catch (IOException e) {
+   logger.warn("Cannot read " + key + " from " + directory, e);
+   return absent();
+  }
+ }
+
+ public synchronized void put(String key, RestResponse response) {
+  try {
+   if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+    throw new IOException("Cannot create " + directory);
+   }
+   File temp = File.createTempFile(SUFFIX, ".tmp", directory);
+   try {
+    Files.write(temp.toPath(), gson.toJson(response).getBytes(UTF_8));
+    Files.move(temp.toPath(), new File(directory, key + SUFFIX).toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+   } finally {
+    temp.delete();
+   }
+   index(key);
+  } catch (IOException e) {
+   logger.warn("Cannot store " + key + " in " + directory, e);
+  }
+ }
+
+ /**
+  * The stored response is still valid, as of now.
+  */
+ public synchronized void touch(String key) {
+  try {
+   index(key);
+  } catch (IOException e) {
+   logger.warn("Cannot touch " + key + " in " + directory, e);
+  }
+ }
+
+ private Optional<RestResponse> readResponse(String key) throws IOException {
+  File response = new File(directory, key + SUFFIX);
+  if (!response.exists()) {
+   return absent();
+  }
+  String json = new String(Files.readAllBytes(response.toPath()), UTF_8);
+  try {
+   RestResponse restResponse = gson.fromJson(json, RestResponse.class);
+   if (restResponse != null && restResponse.getBody() != null) {
+    return of(restResponse);
+   }
+   logger.warn("Deleting " + response + ", it has no response");
+  } catch (JsonParseException e) {
+   logger.warn("Deleting " + response + ", it cannot be parsed", e);
+  }
+  response.delete();
+  return absent();
+ }
+
+ private void index(String key) throws IOException {
+  long stored = System.currentTimeMillis();
+  FileLock lock = lockIndex();
+  try {
+   readIndex();
+   appendIndex(key + " " + stored + "\n");
+   storedPerKey.put(key, stored);
+   if (indexLinesRead > 2 * storedPerKey.size() + 100 || !compactedOnce && longestTtlMillis > 0) {
+    compactIndex();
+   }
+  } finally {
+   release(lock);
+  }
+ }
+
+ private boolean isExpired(long stored, long ttlMillis) {
+  return System.currentTimeMillis() - stored >= ttlMillis;
+ }
+
+ /**
+  * Reads lines appended to the index since it was last read. Starts over if
+  * the index was compacted.
+  */
+ private void readIndex() throws IOException {
+  File index = new File(directory, INDEX);
+  if (!index.exists()) {
+   return;
+  }
+  Object fileKey = readAttributes(index.toPath(), BasicFileAttributes.class).fileKey();
+  RandomAccessFile file = new RandomAccessFile(index, "r");
+  try {
+   if (file.length() < indexBytesRead || fileKey != null && !fileKey.equals(indexFileKey)) {
+    indexFileKey = fileKey;
+    storedPerKey.clear();
+    indexBytesRead = 0;
+    indexLinesRead = 0;
+   }
+   file.seek(indexBytesRead);
+   byte[] appended = new byte[(int) (file.length() - indexBytesRead)];
+   file.readFully(appended);
+   String lines = new String(appended, UTF_8);
+   int complete = lines.lastIndexOf('\n') + 1;
+   for (String line : lines.substring(0, complete).split("\n")) {
+    int space = line.indexOf(' ');
+    if (space > 0) {
+     storedPerKey.put(line.substring(0, space), Long.valueOf(line.substring(space + 1)));
+     indexLinesRead++;
+    }
+   }
+   indexBytesRead += lines.substring(0, complete).getBytes(UTF_8).length;
+  } finally {
+   file.close();
+  }
+ }
+
+ private void appendIndex(String line) throws IOException {
+  RandomAccessFile file = new RandomAccessFile(new File(directory, INDEX), "rw");
+  try {
+   file.seek(file.length());
+   file.write(line.getBytes(UTF_8));
+  } finally {
+   file.close();
+  }
+  readIndex();
+ }
+
+ /**
+  * Rewrites the index with one line per key, and deletes expired responses.
+  * Must hold the lock.
+  */
+ private void compactIndex() throws IOException {
+  StringBuilder compacted = new StringBuilder();
+  for (Entry<String, Long> entry : storedPerKey.entrySet()) {
+   if (longestTtlMillis > 0 && isExpired(entry.getValue(), longestTtlMillis)) {
+    new File(directory, entry.getKey() + SUFFIX).delete();
+   } else {
+    compacted.append(entry.getKey() + " " + entry.getValue() + "\n");
+   }
+  }
+  File temp = File.createTempFile(INDEX, ".tmp", directory);
+  try {
+   Files.write(temp.toPath(), compacted.toString().getBytes(UTF_8));
+   Files.move(temp.toPath(), new File(directory, INDEX).toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+  } finally {
+   temp.delete();
+  }
+  indexBytesRead = 0;
+  indexLinesRead = 0;
+  storedPerKey.clear();
+  readIndex();
+  compactedOnce = true;
+ }
+
+ /**
+  * Locks a file of its own, since the index is replaced when compacted.
+  */
+ private FileLock lockIndex() throws IOException {
+  FileChannel channel = new RandomAccessFile(new File(directory, LOCK), "rw").getChannel();
+  try {
+   return channel.lock();
+  } catch (IOException e) {
+   channel.close();
+   throw e;
+  }
+ }
+
+ private void release(FileLock lock) throws IOException {
+  try {
+   lock.release();
+  } finally {
+   lock.channel().close();
+  }
+ }
+}
@@ -0,0 +1,39 @@
+package se.bjurr.gitchangelog.internal.integrations.rest;
+
+import static com.google.common.base.Optional.fromNullable;
+
+import com.google.common.base.Optional;
+
+/**
+ * A response body, with the validators that the server gave with it.
+ */
+public class RestResponse {
+ private final String body;
+ private final String eTag;
+ private final String lastModified;
+
+ public RestResponse(String body, String eTag, String lastModified) {
+  this.body = body;
+  this.eTag = eTag;
+  this.lastModified = lastModified;
+ }
+
+ public String getBody() {
+  return body;
+ }
+
+ public Optional<String> getETag() {
+  return fromNullable(eTag);
+ }
+
+ public Optional<String> getLastModified() {
+  return fromNullable(lastModified);
+ }
+
+ /**
+  * If the server can tell whether it has changed.
+  */
+ public boolean hasValidators() {
+  return eTag != null || lastModified != null;
+ }
+}
@@ -0,0 +1,191 @@
+package se.bjurr.gitchangelog.internal.issues;
+
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static se.bjurr.gitchangelog.internal.integrations.jira.DefaultJiraClient.ISSUES_PER_SEARCH;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import se.bjurr.gitchangelog.internal.integrations.github.GitHubClient;
+import se.bjurr.gitchangelog.internal.integrations.github.GitHubIssue;
+import se.bjurr.gitchangelog.internal.integrations.jira.JiraClient;
+import se.bjurr.gitchangelog.internal.integrations.jira.JiraIssue;
+
+import com.google.common.base.Optional;
+
+/**
+ * Looks up issues on the executor, while more issues are being found. GitHub
+ * issues one by one, JIRA issues one page of a search at a time. At most
+ * <code>maxInFlightPerServer</code> lookups are made at once against each
+ * server, the others wait in a queue of the server, without holding a thread
+ * of the executor. Issues are not looked up in servers that are not
+ * configured, given as <code>null</code>.
+ */
+class IssueEnricher {
+ private final Executor executor;
+ private final GitHubClient gitHubClient;
+ private final JiraClient jiraClient;
+ private final ServerQueue gitHubQueue;
+ private final ServerQueue jiraQueue;
+ private final List<FutureTask<Map<String, GitHubIssue>>> gitHubLookups = newArrayList();
+ private final List<FutureTask<Map<String, JiraIssue>>> jiraLookups = newArrayList();
+ private List<String> jiraPage = newArrayList();
+
+ IssueEnricher(Executor executor, int maxInFlightPerServer, GitHubClient gitHubClient, JiraClient jiraClient) {
+  this.executor = executor;
+  this.gitHubClient = gitHubClient;
+  this.jiraClient = jiraClient;
+  this.gitHubQueue = new ServerQueue(maxInFlightPerServer);
+  this.jiraQueue = new ServerQueue(maxInFlightPerServer);
+ }
+
+ void lookupGitHubIssue(final String issue) {
+  if (gitHubClient == null) {
+   return;
+  }
+  gitHubLookups.add(submit(gitHubQueue, new Callable<Map<String, GitHubIssue>>() {
+   @Override
+   public Map<String, GitHubIssue> call() {
+    Map<String, GitHubIssue> found = newHashMap();
+    Optional<GitHubIssue> gitHubIssue = gitHubClient.getIssue(issue);
+    if (gitHubIssue.isPresent()) {
+     found.put(issue, gitHubIssue.get());
+    }
+    return found;
+   }
+  }));
+ }
+
+ /**
+  * The issue is looked up when a page of issues has been collected, or when
+  * {@link #getJiraIssues()} is called.
+  */
+ void lookupJiraIssue(String issue) {
+  if (jiraClient == null) {
+   return;
+  }
+  jiraPage.add(issue);
+  if (jiraPage.size() == ISSUES_PER_SEARCH) {
+   lookupJiraPage();
+  }
+ }
+
+ /**
+  * Waits for the lookups of {@link #lookupGitHubIssue(String)}.
+  */
+ Map<String, GitHubIssue> getGitHubIssues() {
+  return join(gitHubLookups);
+ }
+
+ /**
+  * Waits for the lookups of {@link #lookupJiraIssue(String)}.
+  */
+ Map<String, JiraIssue> getJiraIssues() {
+  if (!jiraPage.isEmpty()) {
+   lookupJiraPage();
+  }
+  return join(jiraLookups);
+ }
+
+ private void lookupJiraPage() {
+  final List<String> page = jiraPage;
+  jiraPage = newArrayList();
+  jiraLookups.add(submit(jiraQueue, new Callable<Map<String, JiraIssue>>() {
+   @Override
+   public Map<String, JiraIssue> call() {
+    return jiraClient.getIssues(page);
+   }
+  }));
+ }
+
+ private <T> FutureTask<Map<String, T>> submit(ServerQueue serverQueue, Callable<Map<String, T>> lookup) {
+  FutureTask<Map<String, T>> task = new FutureTask<Map<String, T>>(lookup);
+  serverQueue.submit(task);
+  return task;
+ }
+
+ /**
+  * Lookups against one server. A lookup is given to the executor when one
+  * that is in flight is done.
+  */
+ private class ServerQueue {
+  private final int maxInFlight;
+  private final Queue<Runnable> pending = new ArrayDeque<Runnable>();
+  private int inFlight;
+
+  ServerQueue(int maxInFlight) {
+   this.maxInFlight = maxInFlight;
+  }
+
+  void submit(Runnable lookup) {
+   synchronized (this) {
+    pending.add(lookup);
+   }
+   startNext();
+  }
+
+  private void startNext() {
+   while (true) {
+    final Runnable next;
+    synchronized (this) {
+     if (inFlight >= maxInFlight || pending.isEmpty()) {
+      return;
+     }
+     next = pending.poll();
+     inFlight++;
+    }
+    try {
+     executor.execute(new Runnable() {
+      @Override
+      public void run() {
+       try {
+        next.run();
+       } finally {
+        done();
+       }
+      }
+     });
+    } catch (RuntimeException e) {
+     synchronized (this) {
+      inFlight--;
+     }
+     throw e;
+    }
+   }
+  }
+
+  private void done() {
+   synchronized (this) {
+    inFlight--;
+   }
+   startNext();
+  }
+ }
+
+ private <T> Map<String, T> join(List<FutureTask<Map<String, T>>> lookups) {
+  Map<String, T> found = newHashMap();
+  try {
+   for (FutureTask<Map<String, T>> lookup : lookups) {
+    found.putAll(lookup.get());
+   }
+  } catch (InterruptedException e) {
+   Thread.currentThread().interrupt();
+   throw propagate(e);
+  } catch (ExecutionException e) {
+   throw propagate(e.getCause());
+  } finally {
+   for (FutureTask<Map<String, T>> lookup : lookups) {
+    lookup.cancel(false);
+   }
+  }
+  return found;
+ }
+}
@@ -0,0 +1,69 @@
+package se.bjurr.gitchangelog.internal.issues;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Ordering.usingToString;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import se.bjurr.gitchangelog.internal.git.model.GitCommit;
+import se.bjurr.gitchangelog.internal.model.ParsedIssue;
+
+import com.google.common.collect.ListMultimap;
+
+/**
+ * The issues of every commit in a range, found by one {@link IssueParser}
+ * pass. The issues of any part of the range are derived from it without
+ * parsing the commits again.
+ */
+public class IssueIndex {
+ /**
+  * Issue, without commits, per key.
+  */
+ private final Map<String, ParsedIssue> issues;
+ private final List<GitCommit> commits;
+ /**
+  * Keys, in the order they were found, per commit. A key occurs once per match.
+  */
+ private final ListMultimap<GitCommit, String> keysPerCommit;
+
+ IssueIndex(Map<String, ParsedIssue> issues, List<GitCommit> commits, ListMultimap<GitCommit, String> keysPerCommit) {
+  this.issues = issues;
+  this.commits = commits;
+  this.keysPerCommit = keysPerCommit;
+ }
+
+ /**
+  * The issues of all commits of the range.
+  */
+ public List<ParsedIssue> getIssues() {
+  return getIssues(commits);
+ }
+
+ /**
+  * The issues of the commits, each with the commits that refer to it, sorted
+  * like {@link IssueParser#parseForIssues()}.
+  */
+ public List<ParsedIssue> getIssues(Collection<GitCommit> commits) {
+  Map<String, ParsedIssue> foundIssues = newHashMap();
+  for (GitCommit gitCommit : commits) {
+   checkArgument(keysPerCommit.containsKey(gitCommit), "%s is not indexed", gitCommit);
+   for (String key : keysPerCommit.get(gitCommit)) {
+    ParsedIssue parsedIssue = foundIssues.get(key);
+    if (parsedIssue == null) {
+     ParsedIssue issue = issues.get(key);
+     parsedIssue = new ParsedIssue(//
+       issue.getName(), //
+       issue.getTitle().orNull(), //
+       issue.getIssue(), //
+       issue.getLink());
+     foundIssues.put(key, parsedIssue);
+    }
+    parsedIssue.addCommit(gitCommit);
+   }
+  }
+  return usingToString().sortedCopy(foundIssues.values());
+ }
+}
@@ -1,35 +1,62 @@
 package se.bjurr.gitchangelog.internal.issues;
 
 import static com.google.common.base.Objects.firstNonNull;
+import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
-import static com.google.common.collect.Ordering.usingToString;
-import static java.util.regex.Pattern.compile;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static se.bjurr.gitchangelog.internal.integrations.github.GitHubClientFactory.createGitHubClient;
 import static se.bjurr.gitchangelog.internal.integrations.jira.JiraClientFactory.createJiraClient;
+import static se.bjurr.gitchangelog.internal.integrations.rest.RestDiskCache.restDiskCache;
 import static se.bjurr.gitchangelog.internal.settings.SettingsIssueType.GITHUB;
 import static se.bjurr.gitchangelog.internal.settings.SettingsIssueType.JIRA;
 
+import java.io.File;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 
+import se.bjurr.gitchangelog.internal.git.GitCommitQueue;
 import se.bjurr.gitchangelog.internal.git.model.GitCommit;
 import se.bjurr.gitchangelog.internal.integrations.github.GitHubClient;
 import se.bjurr.gitchangelog.internal.integrations.github.GitHubIssue;
 import se.bjurr.gitchangelog.internal.integrations.jira.JiraClient;
 import se.bjurr.gitchangelog.internal.integrations.jira.JiraIssue;
 import se.bjurr.gitchangelog.internal.model.ParsedIssue;
-import se.bjurr.gitchangelog.internal.settings.IssuesUtil;
+import se.bjurr.gitchangelog.internal.settings.CompiledPatterns;
 import se.bjurr.gitchangelog.internal.settings.Settings;
 import se.bjurr.gitchangelog.internal.settings.SettingsIssue;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
 public class IssueParser {
 
- private final List<GitCommit> commits;
+ private final Iterable<GitCommit> commits;
  private final Settings settings;
+ private final CompiledPatterns compiledPatterns;
+ private final Executor executor;
+
+ public IssueParser(Settings settings, Iterable<GitCommit> commits) {
+  this(settings, new CompiledPatterns(settings), commits);
+ }
+
+ public IssueParser(Settings settings, CompiledPatterns compiledPatterns, Iterable<GitCommit> commits) {
+  this(settings, compiledPatterns, commits, sameThreadExecutor());
+ }
 
- public IssueParser(Settings settings, List<GitCommit> commits) {
+ /**
+  * GitHub and JIRA issues are looked up on the executor. The commits may be
+  * given while they are walked, by a {@link GitCommitQueue}, and are only
+  * iterated once.
+  */
+ public IssueParser(Settings settings, CompiledPatterns compiledPatterns, Iterable<GitCommit> commits,
+   Executor executor) {
+  this.executor = executor;
   this.settings = settings;
+  this.compiledPatterns = compiledPatterns;
   this.commits = commits;
  }
 
@@ -37,44 +64,44 @@ public class IssueParser {
   return settings;
  }
 
- public List<GitCommit> getCommits() {
+ public Iterable<GitCommit> getCommits() {
   return commits;
  }
 
  public List<ParsedIssue> parseForIssues() {
-  Map<String, ParsedIssue> foundIssues = newHashMap();
-
-  GitHubClient gitHubClient = null;
-  if (settings.getGitHubApi().isPresent()) {
-   gitHubClient = createGitHubClient(settings.getGitHubApi().get());
-  }
+  return parseForIssueIndex().getIssues();
+ }
 
-  JiraClient jiraClient = null;
-  if (settings.getJiraServer().isPresent()) {
-   jiraClient = createJiraClient(settings.getJiraServer().get());
-   if (settings.getJiraUsername().isPresent()) {
-    jiraClient.withBasicCredentials(settings.getJiraUsername().get(), settings.getJiraPassword().get());
-   }
-  }
+ /**
+  * Finds the issues of all commits in one pass. A GitHub or JIRA issue is
+  * looked up, on the executor, as soon as it is found.
+  */
+ public IssueIndex parseForIssueIndex() {
+  Map<String, ParsedIssue> foundIssues = newHashMap();
+  Map<String, SettingsIssue> patternPerIssue = newHashMap();
+  List<GitCommit> parsedCommits = newArrayList();
+  ListMultimap<GitCommit, String> keysPerCommit = ArrayListMultimap.create();
 
-  List<SettingsIssue> patterns = new IssuesUtil(settings).getIssues();
+  List<SettingsIssue> patterns = compiledPatterns.getIssues();
+  IssueEnricher issueEnricher = newIssueEnricher();
 
   for (GitCommit gitCommit : commits) {
+   parsedCommits.add(gitCommit);
    boolean commitMappedToIssue = false;
    for (SettingsIssue issuePattern : patterns) {
-    Matcher matcher = compile(issuePattern.getPattern()).matcher(gitCommit.getMessage());
+    Matcher matcher = compiledPatterns.getPattern(issuePattern).matcher(gitCommit.getMessage());
     while (matcher.find()) {
      String matched = matcher.group();
      if (!foundIssues.containsKey(matched)) {
-      if (issuePattern.getType() == GITHUB && gitHubClient != null && gitHubClient.getIssue(matched).isPresent()) {
-       putGitHubIssue(foundIssues, gitHubClient, issuePattern, matched);
-      } else if (issuePattern.getType() == JIRA && jiraClient != null && jiraClient.getIssue(matched).isPresent()) {
-       putJiraIssue(foundIssues, jiraClient, issuePattern, matched);
-      } else {
-       putCustomIssue(foundIssues, issuePattern, matcher, matched);
+      putCustomIssue(foundIssues, issuePattern, matcher, matched);
+      patternPerIssue.put(matched, issuePattern);
+      if (issuePattern.getType() == GITHUB) {
+       issueEnricher.lookupGitHubIssue(matched);
+      } else if (issuePattern.getType() == JIRA) {
+       issueEnricher.lookupJiraIssue(matched);
       }
      }
-     foundIssues.get(matched).addCommit(gitCommit);
+     keysPerCommit.put(gitCommit, matched);
      commitMappedToIssue = true;
     }
    }
@@ -83,15 +110,45 @@ public class IssueParser {
     if (!foundIssues.containsKey(noIssue.getName())) {
      foundIssues.put(noIssue.getName(), noIssue);
     }
-    foundIssues.get(noIssue.getName()).addCommit(gitCommit);
+    keysPerCommit.put(gitCommit, noIssue.getName());
+   }
+  }
+
+  for (Entry<String, GitHubIssue> gitHubIssue : issueEnricher.getGitHubIssues().entrySet()) {
+   putGitHubIssue(foundIssues, gitHubIssue.getValue(), patternPerIssue.get(gitHubIssue.getKey()),
+     gitHubIssue.getKey());
+  }
+  for (Entry<String, JiraIssue> jiraIssue : issueEnricher.getJiraIssues().entrySet()) {
+   putJiraIssue(foundIssues, jiraIssue.getValue(), patternPerIssue.get(jiraIssue.getKey()), jiraIssue.getKey());
+  }
+  return new IssueIndex(foundIssues, parsedCommits, keysPerCommit);
+ }
+
+ private IssueEnricher newIssueEnricher() {
+  GitHubClient gitHubClient = null;
+  if (settings.getGitHubApi().isPresent()) {
+   gitHubClient = createGitHubClient(settings.getGitHubApi().get());
+   if (settings.getRestCacheDirectory().isPresent()) {
+    gitHubClient.withDiskCache(restDiskCache(new File(settings.getRestCacheDirectory().get())),
+      settings.getRestCacheTtlMinutes(), MINUTES);
+   }
+  }
+  JiraClient jiraClient = null;
+  if (settings.getJiraServer().isPresent()) {
+   jiraClient = createJiraClient(settings.getJiraServer().get());
+   if (settings.getJiraUsername().isPresent()) {
+    jiraClient.withBasicCredentials(settings.getJiraUsername().get(), settings.getJiraPassword().get());
+   }
+   if (settings.getRestCacheDirectory().isPresent()) {
+    jiraClient.withDiskCache(restDiskCache(new File(settings.getRestCacheDirectory().get())),
+      settings.getRestCacheTtlMinutes(), MINUTES);
    }
   }
-  return usingToString().sortedCopy(foundIssues.values());
+  return new IssueEnricher(executor, settings.getMaxRequestsInFlightPerServer(), gitHubClient, jiraClient);
  }
 
- private void putGitHubIssue(Map<String, ParsedIssue> foundIssues, GitHubClient gitHubClient,
+ private void putGitHubIssue(Map<String, ParsedIssue> foundIssues, GitHubIssue gitHubIssue,
    SettingsIssue issuePattern, String matched) {
-  GitHubIssue gitHubIssue = gitHubClient.getIssue(matched).get();
   foundIssues.put(matched, new ParsedIssue(//
     issuePattern.getName(),//
     gitHubIssue.getTitle(), //
@@ -99,9 +156,8 @@ public class IssueParser {
     gitHubIssue.getLink()));
  }
 
- private void putJiraIssue(Map<String, ParsedIssue> foundIssues, JiraClient jiraClient, SettingsIssue issuePattern,
+ private void putJiraIssue(Map<String, ParsedIssue> foundIssues, JiraIssue jiraIssue, SettingsIssue issuePattern,
    String matched) {
-  JiraIssue jiraIssue = jiraClient.getIssue(matched).get();
   foundIssues.put(matched, new ParsedIssue(//
     issuePattern.getName(),//
     jiraIssue.getTitle(), //
@@ -112,9 +168,9 @@ public class IssueParser {
  private void putCustomIssue(Map<String, ParsedIssue> foundIssues, SettingsIssue issuePattern, Matcher matcher,
    String matched) {
   String link = issuePattern.getLink().or("") //
-    .replaceAll("\\$\\{PATTERN_GROUP\\}", matched);
+    .replace("${PATTERN_GROUP}", matched);
   for (int i = 0; i <= matcher.groupCount(); i++) {
-   link = link.replaceAll("\\$\\{PATTERN_GROUP_" + i + "\\}", firstNonNull(matcher.group(i), ""));
+   link = link.replace("${PATTERN_GROUP_" + i + "}", firstNonNull(matcher.group(i), ""));
   }
   foundIssues.put(matched, new ParsedIssue(//
     issuePattern.getName(),//
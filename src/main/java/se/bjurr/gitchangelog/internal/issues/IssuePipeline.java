@@ -0,0 +1,87 @@
+package se.bjurr.gitchangelog.internal.issues;
+
+import static com.google.common.base.Throwables.propagate;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import se.bjurr.gitchangelog.internal.git.GitCommitQueue;
+import se.bjurr.gitchangelog.internal.git.GitRepo;
+import se.bjurr.gitchangelog.internal.git.GitRepoData;
+import se.bjurr.gitchangelog.internal.settings.CompiledPatterns;
+import se.bjurr.gitchangelog.internal.settings.Settings;
+
+/**
+ * Walks a range in a thread of its own, while the issues of the commits are
+ * found in the calling thread as the commits are walked. GitHub and JIRA
+ * issues are looked up, on the executor, as soon as they are found. So that
+ * the lookups are made while the repository is read, instead of after it.
+ */
+public class IssuePipeline {
+ private static final int WALKED_COMMITS_CAPACITY = 256;
+
+ private final Settings settings;
+ private final CompiledPatterns compiledPatterns;
+ private final Executor executor;
+ private GitRepoData gitRepoData;
+ private IssueIndex issueIndex;
+
+ public IssuePipeline(Settings settings, CompiledPatterns compiledPatterns, Executor executor) {
+  this.settings = settings;
+  this.compiledPatterns = compiledPatterns;
+  this.executor = executor;
+ }
+
+ /**
+  * Walks the range, in a thread of its own, while the issues are found.
+  */
+ public void run(final GitRepo gitRepo, final ObjectId from, final ObjectId to) {
+  final GitCommitQueue walked = new GitCommitQueue(WALKED_COMMITS_CAPACITY);
+  FutureTask<GitRepoData> walk = new FutureTask<GitRepoData>(new Callable<GitRepoData>() {
+   @Override
+   public GitRepoData call() throws Exception {
+    try {
+     return gitRepo.getGitRepoData(from, to, settings.getUntaggedName(), walked);
+    } finally {
+     walked.close();
+    }
+   }
+  });
+  Thread walker = new Thread(walk, "git-changelog-walk");
+  walker.setDaemon(true);
+  walker.start();
+  try {
+   IssueIndex parsed = new IssueParser(settings, compiledPatterns, walked, executor).parseForIssueIndex();
+   gitRepoData = walk.get();
+   issueIndex = parsed;
+  } catch (InterruptedException e) {
+   Thread.currentThread().interrupt();
+   throw propagate(e);
+  } catch (ExecutionException e) {
+   throw propagate(e.getCause());
+  } finally {
+   walked.abandon();
+  }
+ }
+
+ /**
+  * Walks the range, and then finds the issues of it, in the calling thread.
+  */
+ public void runSequentially(GitRepo gitRepo, ObjectId from, ObjectId to) {
+  gitRepoData = gitRepo.getGitRepoData(from, to, settings.getUntaggedName());
+  issueIndex = new IssueParser(settings, compiledPatterns, gitRepoData.getGitCommits(), executor)
+    .parseForIssueIndex();
+ }
+
+ public GitRepoData getGitRepoData() {
+  return gitRepoData;
+ }
+
+ public IssueIndex getIssueIndex() {
+  return issueIndex;
+ }
+}
@@ -0,0 +1,407 @@
+package se.bjurr.gitchangelog.internal.model;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Optional.absent;
+import static com.google.common.base.Optional.of;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.collect.Maps.newIdentityHashMap;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+
+import se.bjurr.gitchangelog.api.model.Author;
+import se.bjurr.gitchangelog.api.model.Changelog;
+import se.bjurr.gitchangelog.api.model.Commit;
+import se.bjurr.gitchangelog.api.model.Issue;
+import se.bjurr.gitchangelog.api.model.Tag;
+import se.bjurr.gitchangelog.internal.settings.Settings;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * A {@link Changelog} stored in a compact binary file. Each {@link Commit} is
+ * stored once and referred to by its index, so that the lists of the
+ * changelog share commits after being read, as when created by the
+ * {@link Transformer}.
+ */
+public class ChangelogSnapshot {
+ private static final Logger logger = getLogger(ChangelogSnapshot.class);
+ private static final int MAGIC = 0x67636c73;
+ private static final int WATERMARK_MAGIC = 0x6763776d;
+ private static final int VERSION = 1;
+ /**
+  * Settings that change the model. The refs are not, they are replaced by the
+  * commits they point at. A new setting that changes the model must be added.
+  */
+ private static final Set<String> IN_MODEL = ImmutableSet.of("fromRepo", "ignoreCommitsIfMessageMatches",
+   "untaggedName", "readableTagName", "dateFormat", "noIssueName", "timeZone", "removeIssueFromMessage",
+   "jiraServer", "jiraIssuePattern", "jiraUsername", "jiraPassword", "gitHubApi", "gitHubIssuePattern",
+   "customIssues");
+ /**
+  * Only serializes the settings that are in the model, the extended variables
+  * may not be serializable at all.
+  */
+ private static final Gson gson = new GsonBuilder().setExclusionStrategies(new ExclusionStrategy() {
+  @Override
+  public boolean shouldSkipField(FieldAttributes field) {
+   return field.getDeclaringClass() == Settings.class && !IN_MODEL.contains(field.getName());
+  }
+
+  @Override
+  public boolean shouldSkipClass(Class<?> clazz) {
+   return false;
+  }
+ }).create();
+
+ private ChangelogSnapshot() {
+ }
+
+ /**
+  * A key of the range, and of all settings that change the model of it.
+  */
+ public static String toKey(ObjectId from, ObjectId to, Settings settings) {
+  Hasher hasher = Hashing.sha1().newHasher() //
+    .putString(from.name(), UTF_8) //
+    .putString(to.name(), UTF_8) //
+    .putString(gson.toJson(settings), UTF_8);
+  return hasher.hash().toString();
+ }
+
+ /**
+  * A key of where ranges start, and of all settings that change the model of
+  * them.
+  */
+ public static String toKey(ObjectId from, Settings settings) {
+  Hasher hasher = Hashing.sha1().newHasher() //
+    .putString(from.name(), UTF_8) //
+    .putString(gson.toJson(settings), UTF_8);
+  return hasher.hash().toString();
+ }
+
+ /**
+  * The changelog stored in the file, absent if there is none or if it cannot
+  * be read.
+  */
+ public static Optional<Changelog> readSnapshot(File file) {
+  if (!file.exists()) {
+   return absent();
+  }
+  DataInputStream in = null;
+  try {
+   in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+   if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+    logger.info("Ignoring " + file + ", not a snapshot of this version");
+    return absent();
+   }
+   return of(readChangelog(in));
+  } catch (IOException e) {
+   logger.warn("Cannot read " + file, e);
+  } catch (RuntimeException e) {
+   logger.warn("Cannot read " + file, e);
+  } finally {
+   closeQuietly(in);
+  }
+  return absent();
+ }
+
+ /**
+  * Writes the changelog to a temporary file that then replaces the file.
+  */
+ public static void writeSnapshot(final Changelog changelog, File file) throws IOException {
+  write(file, new Writing() {
+   @Override
+   public void write(DataOutputStream out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    writeChangelog(out, changelog);
+   }
+  });
+ }
+
+ /**
+  * The watermark stored in the file, absent if there is none or if it cannot
+  * be read.
+  */
+ public static Optional<ChangelogWatermark> readWatermark(File file) {
+  if (!file.exists()) {
+   return absent();
+  }
+  DataInputStream in = null;
+  try {
+   in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+   if (in.readInt() != WATERMARK_MAGIC || in.readInt() != VERSION) {
+    logger.info("Ignoring " + file + ", not a watermark of this version");
+    return absent();
+   }
+   String key = readString(in);
+   ObjectId watermark = ObjectId.fromString(readString(in));
+   ListMultimap<ObjectId, String> tagNamesPerCommit = ArrayListMultimap.create();
+   Set<ObjectId> taggedUpToWatermark = newHashSet();
+   int tagged = in.readInt();
+   for (int i = 0; i < tagged; i++) {
+    ObjectId commit = ObjectId.fromString(readString(in));
+    if (in.readBoolean()) {
+     taggedUpToWatermark.add(commit);
+    }
+    int names = in.readInt();
+    for (int j = 0; j < names; j++) {
+     tagNamesPerCommit.put(commit, readString(in));
+    }
+   }
+   return of(new ChangelogWatermark(key, watermark, tagNamesPerCommit, taggedUpToWatermark, readChangelog(in)));
+  } catch (IOException e) {
+   logger.warn("Cannot read " + file, e);
+  } catch (RuntimeException e) {
+   logger.warn("Cannot read " + file, e);
+  } finally {
+   closeQuietly(in);
+  }
+  return absent();
+ }
+
+ /**
+  * Writes the watermark like {@link #writeSnapshot(Changelog, File)}.
+  */
+ public static void writeWatermark(final ChangelogWatermark watermark, File file) throws IOException {
+  write(file, new Writing() {
+   @Override
+   public void write(DataOutputStream out) throws IOException {
+    out.writeInt(WATERMARK_MAGIC);
+    out.writeInt(VERSION);
+    writeString(out, watermark.getKey());
+    writeString(out, watermark.getWatermark().name());
+    ListMultimap<ObjectId, String> tagNamesPerCommit = watermark.getTagNamesPerCommit();
+    out.writeInt(tagNamesPerCommit.keySet().size());
+    for (ObjectId commit : tagNamesPerCommit.keySet()) {
+     writeString(out, commit.name());
+     out.writeBoolean(watermark.getTaggedUpToWatermark().contains(commit));
+     out.writeInt(tagNamesPerCommit.get(commit).size());
+     for (String name : tagNamesPerCommit.get(commit)) {
+      writeString(out, name);
+     }
+    }
+    writeChangelog(out, watermark.getChangelog());
+   }
+  });
+ }
+
+ private interface Writing {
+  void write(DataOutputStream out) throws IOException;
+ }
+
+ private static void write(File file, Writing writing) throws IOException {
+  File directory = file.getAbsoluteFile().getParentFile();
+  if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+   throw new IOException("Cannot create " + directory);
+  }
+  File temp = File.createTempFile("." + file.getName() + "-", ".tmp", directory);
+  try {
+   DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+   try {
+    writing.write(out);
+   } finally {
+    out.close();
+   }
+   Files.move(temp.toPath(), file.getAbsoluteFile().toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+  } finally {
+   temp.delete();
+  }
+ }
+
+ private static void writeChangelog(DataOutputStream out, Changelog changelog) throws IOException {
+  Map<Commit, Integer> indexes = newIdentityHashMap();
+  List<Commit> commits = newArrayList();
+  collect(changelog.getCommits(), indexes, commits);
+  for (Tag tag : changelog.getTags()) {
+   collect(tag.getCommits(), indexes, commits);
+   collectAuthors(tag.getAuthors(), indexes, commits);
+   collectIssues(tag.getIssues(), indexes, commits);
+  }
+  collectAuthors(changelog.getAuthors(), indexes, commits);
+  collectIssues(changelog.getIssues(), indexes, commits);
+
+  out.writeInt(commits.size());
+  for (Commit commit : commits) {
+   writeString(out, commit.getAuthorName());
+   writeString(out, commit.getAuthorEmailAddress());
+   writeString(out, commit.getCommitTime());
+   out.writeLong(commit.getCommitTimeLong());
+   writeString(out, commit.getMessage());
+   writeString(out, commit.getHash());
+  }
+  writeCommits(out, changelog.getCommits(), indexes);
+  out.writeInt(changelog.getTags().size());
+  for (Tag tag : changelog.getTags()) {
+   writeString(out, tag.getName());
+   writeCommits(out, tag.getCommits(), indexes);
+   writeAuthors(out, tag.getAuthors(), indexes);
+   writeIssues(out, tag.getIssues(), indexes);
+  }
+  writeAuthors(out, changelog.getAuthors(), indexes);
+  writeIssues(out, changelog.getIssues(), indexes);
+ }
+
+ private static Changelog readChangelog(DataInputStream in) throws IOException {
+  int size = in.readInt();
+  List<Commit> commits = newArrayList();
+  for (int i = 0; i < size; i++) {
+   commits.add(new Commit(readString(in), readString(in), readString(in), in.readLong(), readString(in),
+     readString(in)));
+  }
+  List<Commit> changelogCommits = readCommits(in, commits);
+  int tagCount = in.readInt();
+  List<Tag> tags = newArrayList();
+  for (int i = 0; i < tagCount; i++) {
+   String name = readString(in);
+   tags.add(new Tag(name, readCommits(in, commits), readAuthors(in, commits), readIssues(in, commits)));
+  }
+  return new Changelog(changelogCommits, tags, readAuthors(in, commits), readIssues(in, commits));
+ }
+
+ private static void collectAuthors(List<Author> authors, Map<Commit, Integer> indexes, List<Commit> commits) {
+  for (Author author : authors) {
+   collect(author.getCommits(), indexes, commits);
+  }
+ }
+
+ private static void collectIssues(List<Issue> issues, Map<Commit, Integer> indexes, List<Commit> commits) {
+  for (Issue issue : issues) {
+   collect(issue.getCommits(), indexes, commits);
+   collectAuthors(issue.getAuthors(), indexes, commits);
+  }
+ }
+
+ private static void collect(List<Commit> from, Map<Commit, Integer> indexes, List<Commit> commits) {
+  for (Commit commit : from) {
+   if (!indexes.containsKey(commit)) {
+    indexes.put(commit, commits.size());
+    commits.add(commit);
+   }
+  }
+ }
+
+ private static void writeCommits(DataOutputStream out, List<Commit> commits, Map<Commit, Integer> indexes)
+   throws IOException {
+  out.writeInt(commits.size());
+  for (Commit commit : commits) {
+   out.writeInt(indexes.get(commit));
+  }
+ }
+
+ private static List<Commit> readCommits(DataInputStream in, List<Commit> commits) throws IOException {
+  int size = in.readInt();
+  List<Commit> read = newArrayList();
+  for (int i = 0; i < size; i++) {
+   read.add(commits.get(in.readInt()));
+  }
+  return read;
+ }
+
+ private static void writeAuthors(DataOutputStream out, List<Author> authors, Map<Commit, Integer> indexes)
+   throws IOException {
+  out.writeInt(authors.size());
+  for (Author author : authors) {
+   writeString(out, author.getAuthorName());
+   writeString(out, author.getAuthorEmail());
+   writeCommits(out, author.getCommits(), indexes);
+  }
+ }
+
+ private static List<Author> readAuthors(DataInputStream in, List<Commit> commits) throws IOException {
+  int size = in.readInt();
+  List<Author> authors = newArrayList();
+  for (int i = 0; i < size; i++) {
+   String authorName = readString(in);
+   String authorEmail = readString(in);
+   authors.add(new Author(authorName, authorEmail, readCommits(in, commits)));
+  }
+  return authors;
+ }
+
+ private static void writeIssues(DataOutputStream out, List<Issue> issues, Map<Commit, Integer> indexes)
+   throws IOException {
+  out.writeInt(issues.size());
+  for (Issue issue : issues) {
+   writeString(out, issue.getName());
+   writeString(out, issue.getTitle());
+   writeString(out, issue.getIssue());
+   writeString(out, issue.getLink());
+   writeCommits(out, issue.getCommits(), indexes);
+   writeAuthors(out, issue.getAuthors(), indexes);
+  }
+ }
+
+ private static List<Issue> readIssues(DataInputStream in, List<Commit> commits) throws IOException {
+  int size = in.readInt();
+  List<Issue> issues = newArrayList();
+  for (int i = 0; i < size; i++) {
+   String name = readString(in);
+   String title = readString(in);
+   String issue = readString(in);
+   String link = readString(in);
+   List<Commit> issueCommits = readCommits(in, commits);
+   issues.add(new Issue(issueCommits, readAuthors(in, commits), name, title, issue, link));
+  }
+  return issues;
+ }
+
+ /**
+  * Length and UTF-8 bytes, or -1 for null. Unlike
+  * {@link DataOutputStream#writeUTF(String)}, not limited to 64k.
+  */
+ private static void writeString(DataOutputStream out, String string) throws IOException {
+  if (string == null) {
+   out.writeInt(-1);
+   return;
+  }
+  byte[] bytes = string.getBytes(UTF_8);
+  out.writeInt(bytes.length);
+  out.write(bytes);
+ }
+
+ private static String readString(DataInputStream in) throws IOException {
+  int length = in.readInt();
+  if (length == -1) {
+   return null;
+  }
+  byte[] bytes = new byte[length];
+  in.readFully(bytes);
+  return new String(bytes, UTF_8);
+ }
+
+ private static void closeQuietly(DataInputStream in) {
+  if (in != null) {
+   try {
+    in.close();
+   } catch (IOException e) {
+    logger.debug("Cannot close", e);
+   }
+  }
+ }
+}
@@ -0,0 +1,60 @@
+package se.bjurr.gitchangelog.internal.model;
+
+import java.util.Set;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import se.bjurr.gitchangelog.api.model.Changelog;
+
+import com.google.common.collect.ListMultimap;
+
+/**
+ * The changelog up to, and including, the newest tagged commit of a range,
+ * the watermark. The tags before it are done, so a later changelog of a range
+ * that reaches the watermark only creates what is newer than it and puts it
+ * before this one.
+ */
+public class ChangelogWatermark {
+ private final String key;
+ private final ObjectId watermark;
+ private final ListMultimap<ObjectId, String> tagNamesPerCommit;
+ private final Set<ObjectId> taggedUpToWatermark;
+ private final Changelog changelog;
+
+ /**
+  * @param key
+  *         Of the from-commit and the settings that change the model.
+  * @param tagNamesPerCommit
+  *         All tags of the repository, when the changelog was created.
+  * @param taggedUpToWatermark
+  *         The tagged commits of the changelog.
+  */
+ public ChangelogWatermark(String key, ObjectId watermark, ListMultimap<ObjectId, String> tagNamesPerCommit,
+   Set<ObjectId> taggedUpToWatermark, Changelog changelog) {
+  this.key = key;
+  this.watermark = watermark;
+  this.tagNamesPerCommit = tagNamesPerCommit;
+  this.taggedUpToWatermark = taggedUpToWatermark;
+  this.changelog = changelog;
+ }
+
+ public String getKey() {
+  return key;
+ }
+
+ public ObjectId getWatermark() {
+  return watermark;
+ }
+
+ public ListMultimap<ObjectId, String> getTagNamesPerCommit() {
+  return tagNamesPerCommit;
+ }
+
+ public Set<ObjectId> getTaggedUpToWatermark() {
+  return taggedUpToWatermark;
+ }
+
+ public Changelog getChangelog() {
+  return changelog;
+ }
+}
@@ -1,70 +1,177 @@
 package se.bjurr.gitchangelog.internal.model;
 
+import static com.google.common.base.Optional.absent;
+import static com.google.common.base.Optional.of;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.collect.Iterables.any;
 import static com.google.common.collect.Iterables.filter;
-import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Lists.newArrayList;
-import static com.google.common.collect.Lists.transform;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newLinkedHashMap;
 import static com.google.common.collect.Multimaps.index;
+import static com.google.common.collect.Sets.newLinkedHashSet;
+import static com.google.common.collect.Sets.newTreeSet;
 import static java.util.TimeZone.getTimeZone;
-import static java.util.regex.Pattern.compile;
 import static se.bjurr.gitchangelog.internal.common.GitPredicates.ignoreCommits;
+import static se.bjurr.gitchangelog.internal.git.model.GitCommit.toHash;
 
 import java.text.SimpleDateFormat;
 import java.util.Collection;
-import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.regex.Matcher;
 
+import org.eclipse.jgit.lib.ObjectId;
+
 import se.bjurr.gitchangelog.api.model.Author;
+import se.bjurr.gitchangelog.api.model.Changelog;
 import se.bjurr.gitchangelog.api.model.Commit;
 import se.bjurr.gitchangelog.api.model.Issue;
 import se.bjurr.gitchangelog.api.model.Tag;
 import se.bjurr.gitchangelog.internal.git.model.GitCommit;
 import se.bjurr.gitchangelog.internal.git.model.GitTag;
-import se.bjurr.gitchangelog.internal.issues.IssueParser;
-import se.bjurr.gitchangelog.internal.settings.IssuesUtil;
+import se.bjurr.gitchangelog.internal.issues.IssueIndex;
+import se.bjurr.gitchangelog.internal.settings.CompiledPatterns;
 import se.bjurr.gitchangelog.internal.settings.Settings;
 import se.bjurr.gitchangelog.internal.settings.SettingsIssue;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 
+/**
+ * Creates the {@link Changelog} model from the GIT model. An instance is a
+ * session, each {@link GitCommit} is filtered and converted once per session
+ * and the same {@link Commit} is used in all lists of the session. A session
+ * can be used by many threads. The lazy lists are not part of the session,
+ * they keep nothing.
+ */
 public class Transformer {
+ private static final Function<GitCommit, String> AUTHOR_KEY = new Function<GitCommit, String>() {
+  @Override
+  public String apply(GitCommit input) {
+   return input.getAuthorEmailAddress() + "-" + input.getAuthorName();
+  }
+ };
 
  public Transformer(Settings settings) {
+  this(settings, new CompiledPatterns(settings));
+ }
+
+ public Transformer(Settings settings, CompiledPatterns compiledPatterns) {
   this.settings = settings;
+  this.compiledPatterns = compiledPatterns;
+  this.ignoreCommits = ignoreCommits(compiledPatterns.getIgnoreCommitsPattern());
+  this.dateFormat = new SimpleDateFormat(settings.getDateFormat());
+  this.dateFormat.setTimeZone(getTimeZone(settings.getTimeZone()));
  }
 
  private final Settings settings;
+ private final CompiledPatterns compiledPatterns;
+ private final Predicate<GitCommit> ignoreCommits;
+ /**
+  * Not thread safe, used while synchronized on it.
+  */
+ private final SimpleDateFormat dateFormat;
+ /**
+  * Commits of this session, absent if ignored.
+  */
+ private final ConcurrentMap<GitCommit, Optional<Commit>> commitsPerGitCommit =
+   new ConcurrentHashMap<GitCommit, Optional<Commit>>();
 
- public List<Tag> toTags(List<GitTag> gitTags) {
+ /**
+  * The issues of each tag are taken from the issue index, that must include
+  * all commits of the tags.
+  */
+ public List<Tag> toTags(List<GitTag> gitTags, IssueIndex issueIndex) {
+  return toTags(gitTags, issueIndex, false);
+ }
 
-  Iterable<Tag> tags = transform(gitTags, new Function<GitTag, Tag>() {
+ /**
+  * Like {@link #toTags(List, IssueIndex)}, but each {@link Tag} is created
+  * concurrently, in this session, on the executor. The tags are in the same
+  * order.
+  */
+ public List<Tag> toTags(List<GitTag> gitTags, final IssueIndex issueIndex, Executor executor) {
+  List<FutureTask<Tag>> tasks = newArrayList();
+  for (final GitTag gitTag : tagsWithCommits(gitTags)) {
+   FutureTask<Tag> task = new FutureTask<Tag>(new Callable<Tag>() {
+    @Override
+    public Tag call() {
+     return toTag(gitTag, issueIndex);
+    }
+   });
+   tasks.add(task);
+   executor.execute(task);
+  }
+  List<Tag> tags = newArrayList();
+  try {
+   for (FutureTask<Tag> task : tasks) {
+    tags.add(task.get());
+   }
+  } catch (InterruptedException e) {
+   Thread.currentThread().interrupt();
+   throw propagate(e);
+  } catch (ExecutionException e) {
+   throw propagate(e.getCause());
+  } finally {
+   for (FutureTask<Tag> task : tasks) {
+    task.cancel(false);
+   }
+  }
+  return tags;
+ }
+
+ /**
+  * Like {@link #toTags(List, IssueIndex)}, but each {@link Tag} is created,
+  * in a session of its own, each time it is accessed. It is not kept, so it can
+  * be collected once it is rendered. Tags without any commit that is not
+  * ignored are left out up front.
+  */
+ public List<Tag> toTagsLazily(List<GitTag> gitTags, IssueIndex issueIndex) {
+  return toTags(gitTags, issueIndex, true);
+ }
+
+ private List<Tag> toTags(List<GitTag> gitTags, final IssueIndex issueIndex, final boolean lazily) {
+  return toList(tagsWithCommits(gitTags), new Function<GitTag, Tag>() {
    @Override
    public Tag apply(GitTag input) {
-    List<GitCommit> gitCommits = input.getGitCommits();
-    List<Commit> commits = toCommits(gitCommits);
-    List<Author> authors = toAuthors(gitCommits);
-    List<ParsedIssue> parsedIssues = new IssueParser(settings, gitCommits).parseForIssues();
-    List<Issue> issues = toIssues(parsedIssues);
-    return new Tag(toReadableTagName(input.getName()), commits, authors, issues);
+    return session(lazily).toTag(input, issueIndex);
    }
-  });
+  }, lazily);
+ }
 
-  tags = filter(tags, new Predicate<Tag>() {
+ private List<GitTag> tagsWithCommits(List<GitTag> gitTags) {
+  return newArrayList(filter(gitTags, new Predicate<GitTag>() {
    @Override
-   public boolean apply(Tag input) {
-    return !input.getAuthors().isEmpty() && !input.getCommits().isEmpty();
+   public boolean apply(GitTag input) {
+    return any(input.getGitCommits(), ignoreCommits);
    }
-  });
+  }));
+ }
 
-  return newArrayList(tags);
+ private Tag toTag(GitTag gitTag, IssueIndex issueIndex) {
+  List<GitCommit> gitCommits = gitTag.getGitCommits();
+  List<Commit> commits = toCommits(gitCommits);
+  List<Author> authors = toAuthors(gitCommits);
+  List<ParsedIssue> parsedIssues = issueIndex.getIssues(gitCommits);
+  List<Issue> issues = toIssues(parsedIssues);
+  return new Tag(toReadableTagName(gitTag.getName()), commits, authors, issues);
  }
 
  private String toReadableTagName(String input) {
-  Matcher matcher = compile(settings.getReadableTagName()).matcher(input);
+  Matcher matcher = compiledPatterns.getReadableTagNamePattern().matcher(input);
   if (matcher.find()) {
    if (matcher.groupCount() == 0) {
     throw new RuntimeException("Pattern: \"" + settings.getReadableTagName() + "\" did not match any group in: \""
@@ -76,46 +183,107 @@ public class Transformer {
  }
 
  public List<Commit> toCommits(Collection<GitCommit> from) {
-  Iterable<GitCommit> filteredCommits = filter(from, ignoreCommits(settings.getIgnoreCommitsIfMessageMatches()));
-  return newArrayList(transform(filteredCommits, new Function<GitCommit, Commit>() {
+  List<Commit> commits = newArrayList();
+  for (GitCommit gitCommit : from) {
+   Optional<Commit> commit = getCommit(gitCommit);
+   if (commit.isPresent()) {
+    commits.add(commit.get());
+   }
+  }
+  return commits;
+ }
+
+ /**
+  * Like {@link #toCommits(Collection)}, but each {@link Commit} is created each
+  * time it is accessed, and not kept.
+  */
+ public List<Commit> toCommitsLazily(Collection<GitCommit> from) {
+  List<GitCommit> filteredCommits = newArrayList(filter(from, ignoreCommits));
+  return toList(filteredCommits, new Function<GitCommit, Commit>() {
    @Override
    public Commit apply(GitCommit c) {
     return toCommit(c);
    }
-  }));
+  }, true);
+ }
+
+ private Optional<Commit> getCommit(GitCommit gitCommit) {
+  Optional<Commit> commit = commitsPerGitCommit.get(gitCommit);
+  if (commit == null) {
+   if (ignoreCommits.apply(gitCommit)) {
+    commit = of(toCommit(gitCommit));
+   } else {
+    commit = absent();
+   }
+   Optional<Commit> concurrentlyCreated = commitsPerGitCommit.putIfAbsent(gitCommit, commit);
+   if (concurrentlyCreated != null) {
+    commit = concurrentlyCreated;
+   }
+  }
+  return commit;
  }
 
  public List<Issue> toIssues(List<ParsedIssue> issues) {
-  Iterable<ParsedIssue> issuesWithCommits = filter(issues, new Predicate<ParsedIssue>() {
+  return toIssues(issues, false);
+ }
+
+ /**
+  * Like {@link #toIssues(List)}, but each {@link Issue} is created, in a
+  * session of its own, each time it is accessed.
+  */
+ public List<Issue> toIssuesLazily(List<ParsedIssue> issues) {
+  return toIssues(issues, true);
+ }
+
+ private List<Issue> toIssues(List<ParsedIssue> issues, final boolean lazily) {
+  List<ParsedIssue> issuesWithCommits = newArrayList(filter(issues, new Predicate<ParsedIssue>() {
    @Override
    public boolean apply(ParsedIssue input) {
-    return !toCommits(input.getGitCommits()).isEmpty();
+    return any(input.getGitCommits(), ignoreCommits);
    }
-  });
+  }));
 
-  return newArrayList(transform(issuesWithCommits, new Function<ParsedIssue, Issue>() {
+  return toList(issuesWithCommits, new Function<ParsedIssue, Issue>() {
    @Override
    public Issue apply(ParsedIssue input) {
-    List<GitCommit> gitCommits = input.getGitCommits();
-    return new Issue(//
-      toCommits(gitCommits), //
-      toAuthors(gitCommits),//
-      input.getName(), //
-      input.getTitle().or(""), //
-      input.getIssue(), //
-      input.getLink());
+    return session(lazily).toIssue(input);
    }
-  }));
+  }, lazily);
  }
 
+ private Issue toIssue(ParsedIssue parsedIssue) {
+  List<GitCommit> gitCommits = parsedIssue.getGitCommits();
+  return new Issue(//
+    toCommits(gitCommits), //
+    toAuthors(gitCommits),//
+    parsedIssue.getName(), //
+    parsedIssue.getTitle().or(""), //
+    parsedIssue.getIssue(), //
+    parsedIssue.getLink());
+ }
+
+ /**
+  * The hash is formatted from the id of the commit when the template asks for
+  * it, so the commit does not keep the {@link GitCommit}.
+  */
  private Commit toCommit(GitCommit gitCommit) {
+  final ObjectId id = gitCommit.getId();
+  String commitTime;
+  synchronized (dateFormat) {
+   commitTime = dateFormat.format(gitCommit.getCommitTime());
+  }
   return new Commit(//
     gitCommit.getAuthorName(), //
     gitCommit.getAuthorEmailAddress(), //
-    format(gitCommit.getCommitTime()), //
+    commitTime, //
     gitCommit.getCommitTime().getTime(), //
-    toMessage(settings.removeIssueFromMessage(), new IssuesUtil(settings).getIssues(), gitCommit.getMessage()), //
-    gitCommit.getHash());
+    toMessage(settings.removeIssueFromMessage(), compiledPatterns.getIssues(), gitCommit.getMessage()), //
+    new Supplier<String>() {
+     @Override
+     public String get() {
+      return toHash(id);
+     }
+    });
  }
 
  @VisibleForTesting
@@ -126,43 +294,138 @@ public class Transformer {
  private String removeIssuesFromString(boolean removeIssueFromMessage, List<SettingsIssue> issues, String string) {
   if (removeIssueFromMessage) {
    for (SettingsIssue issue : issues) {
-    string = string.replaceAll(issue.getPattern(), "");
+    string = compiledPatterns.getPattern(issue).matcher(string).replaceAll("");
    }
   }
   return string;
  }
 
- private String format(Date commitTime) {
-  SimpleDateFormat df = new SimpleDateFormat(settings.getDateFormat());
-  df.setTimeZone(getTimeZone(settings.getTimeZone()));
-  return df.format(commitTime);
+ public List<Author> toAuthors(List<GitCommit> gitCommits) {
+  return toAuthors(gitCommits, false);
  }
 
- public List<Author> toAuthors(List<GitCommit> gitCommits) {
-  final Multimap<String, GitCommit> commitsPerAuthor = index(gitCommits, new Function<GitCommit, String>() {
-   @Override
-   public String apply(GitCommit input) {
-    return input.getAuthorEmailAddress() + "-" + input.getAuthorName();
-   }
-  });
+ /**
+  * Like {@link #toAuthors(List)}, but each {@link Author} is created, in a
+  * session of its own, each time it is accessed.
+  */
+ public List<Author> toAuthorsLazily(List<GitCommit> gitCommits) {
+  return toAuthors(gitCommits, true);
+ }
+
+ private List<Author> toAuthors(List<GitCommit> gitCommits, final boolean lazily) {
+  final Multimap<String, GitCommit> commitsPerAuthor = index(gitCommits, AUTHOR_KEY);
 
-  Iterable<String> authorsWithCommits = filter(commitsPerAuthor.keySet(), new Predicate<String>() {
+  List<String> authorsWithCommits = newArrayList(filter(commitsPerAuthor.keySet(), new Predicate<String>() {
    @Override
    public boolean apply(String input) {
-    return toCommits(commitsPerAuthor.get(input)).size() > 0;
+    return any(commitsPerAuthor.get(input), ignoreCommits);
    }
-  });
+  }));
 
-  return newArrayList(transform(authorsWithCommits, new Function<String, Author>() {
+  return toList(authorsWithCommits, new Function<String, Author>() {
    @Override
    public Author apply(String input) {
-    List<GitCommit> gitCommitsOfSameAuthor = newArrayList(commitsPerAuthor.get(input));
-    List<Commit> commitsOfSameAuthor = toCommits(gitCommitsOfSameAuthor);
+    List<Commit> commitsOfSameAuthor = session(lazily).toCommits(commitsPerAuthor.get(input));
     return new Author(//
       commitsOfSameAuthor.get(0).getAuthorName(), //
       commitsOfSameAuthor.get(0).getAuthorEmailAddress(), //
       commitsOfSameAuthor);
    }
-  }));
+  }, lazily);
+ }
+
+ /**
+  * The authors of the newer commits followed by the older authors, like
+  * {@link #toAuthors(List)} of the newer commits followed by the commits of
+  * the older authors. The older authors are in the order of
+  * {@link #toAuthors(List)}.
+  */
+ public List<Author> toAuthors(List<GitCommit> newer, List<Author> older) {
+  Multimap<String, GitCommit> commitsPerAuthor = index(newer, AUTHOR_KEY);
+  Map<String, Author> olderPerAuthor = newLinkedHashMap();
+  for (Author author : older) {
+   olderPerAuthor.put(author.getAuthorEmail() + "-" + author.getAuthorName(), author);
+  }
+  Set<String> keys = newLinkedHashSet(commitsPerAuthor.keySet());
+  keys.addAll(olderPerAuthor.keySet());
+  List<Author> authors = newArrayList();
+  for (String key : keys) {
+   List<Commit> commitsOfSameAuthor = toCommits(commitsPerAuthor.get(key));
+   if (olderPerAuthor.containsKey(key)) {
+    commitsOfSameAuthor.addAll(olderPerAuthor.get(key).getCommits());
+   }
+   if (!commitsOfSameAuthor.isEmpty()) {
+    authors.add(new Author(//
+      commitsOfSameAuthor.get(0).getAuthorName(), //
+      commitsOfSameAuthor.get(0).getAuthorEmailAddress(), //
+      commitsOfSameAuthor));
+   }
+  }
+  return authors;
+ }
+
+ /**
+  * The issues of the newer commits and the older issues, like
+  * {@link #toIssues(List)} of all their commits. The newer commits of an issue
+  * are put before the older, and the title and link of the newer issue are
+  * used. Issues are sorted like {@link ParsedIssue#toString()}.
+  */
+ public List<Issue> toIssues(List<ParsedIssue> newer, List<Issue> older) {
+  Map<String, ParsedIssue> newerPerIssue = newHashMap();
+  for (ParsedIssue parsedIssue : newer) {
+   newerPerIssue.put(parsedIssue.toString(), parsedIssue);
+  }
+  Map<String, Issue> olderPerIssue = newHashMap();
+  for (Issue issue : older) {
+   olderPerIssue.put(issue.getName() + (issue.hasIssue() ? issue.getIssue() : null), issue);
+  }
+  Set<String> keys = newTreeSet(newerPerIssue.keySet());
+  keys.addAll(olderPerIssue.keySet());
+  List<Issue> issues = newArrayList();
+  for (String key : keys) {
+   ParsedIssue newerIssue = newerPerIssue.get(key);
+   Issue olderIssue = olderPerIssue.get(key);
+   if (newerIssue == null) {
+    issues.add(olderIssue);
+    continue;
+   }
+   List<Commit> commits = toCommits(newerIssue.getGitCommits());
+   List<Author> olderAuthors = newArrayList();
+   if (olderIssue != null) {
+    commits.addAll(olderIssue.getCommits());
+    olderAuthors = olderIssue.getAuthors();
+   }
+   if (!commits.isEmpty()) {
+    issues.add(new Issue(//
+      commits, //
+      toAuthors(newerIssue.getGitCommits(), olderAuthors), //
+      newerIssue.getName(), //
+      newerIssue.getTitle().or(""), //
+      newerIssue.getIssue(), //
+      newerIssue.getLink()));
+   }
+  }
+  return issues;
+ }
+
+ /**
+  * This session, or a new one for an element of a lazy list, so that the
+  * element does not keep, or stay in, this one.
+  */
+ private Transformer session(boolean lazily) {
+  if (lazily) {
+   return new Transformer(settings, compiledPatterns);
+  }
+  return this;
+ }
+
+ /**
+  * A view that creates each element when it is accessed, if lazily.
+  */
+ private static <F, T> List<T> toList(List<F> from, Function<F, T> function, boolean lazily) {
+  if (lazily) {
+   return Lists.transform(from, function);
+  }
+  return newArrayList(Lists.transform(from, function));
  }
 }
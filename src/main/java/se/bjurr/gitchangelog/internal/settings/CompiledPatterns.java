@@ -0,0 +1,54 @@
+package se.bjurr.gitchangelog.internal.settings;
+
+import static java.util.regex.Pattern.DOTALL;
+import static java.util.regex.Pattern.compile;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * The regular expressions of {@link Settings}, and of the issues given by
+ * {@link IssuesUtil}, compiled once. Shared by everything that matches commit
+ * messages and tag names while creating a changelog.
+ */
+public class CompiledPatterns {
+ private final ConcurrentMap<String, Pattern> issuePatterns = new ConcurrentHashMap<String, Pattern>();
+ private final Pattern ignoreCommitsPattern;
+ private final Pattern readableTagNamePattern;
+ private final List<SettingsIssue> issues;
+
+ public CompiledPatterns(Settings settings) {
+  this.ignoreCommitsPattern = compile(settings.getIgnoreCommitsIfMessageMatches(), DOTALL);
+  this.readableTagNamePattern = compile(settings.getReadableTagName());
+  this.issues = new IssuesUtil(settings).getIssues();
+  for (SettingsIssue issue : issues) {
+   getPattern(issue);
+  }
+ }
+
+ public Pattern getIgnoreCommitsPattern() {
+  return ignoreCommitsPattern;
+ }
+
+ public Pattern getReadableTagNamePattern() {
+  return readableTagNamePattern;
+ }
+
+ public List<SettingsIssue> getIssues() {
+  return issues;
+ }
+
+ /**
+  * Compiled pattern of the issue. Compiled once per distinct pattern.
+  */
+ public Pattern getPattern(SettingsIssue issue) {
+  Pattern pattern = issuePatterns.get(issue.getPattern());
+  if (pattern == null) {
+   pattern = compile(issue.getPattern());
+   issuePatterns.putIfAbsent(issue.getPattern(), pattern);
+  }
+  return pattern;
+ }
+}
@@ -11,9 +11,11 @@ import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.DEFAULT_FILE;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.DEFAULT_GITHUB_ISSUE_PATTERN;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.DEFAULT_IGNORE_COMMITS_REGEXP;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.DEFAULT_JIRA_ISSUE_PATTEN;
+import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.DEFAULT_MAX_REQUESTS_IN_FLIGHT_PER_SERVER;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.DEFAULT_NO_ISSUE_NAME;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.DEFAULT_READABLE_TAG_NAME;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.DEFAULT_REMOVE_ISSUE;
+import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.DEFAULT_REST_CACHE_TTL_MINUTES;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.DEFAULT_TIMEZONE;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.DEFAULT_UNTAGGED_NAME;
 
@@ -156,6 +158,42 @@ public class Settings {
   * supply some internal variables to the changelog context.
   */
  private Map<String, Object> extendedVariables;
+ /**
+  * If true, the changelog is created while the template is rendered. Each tag,
+  * commit, author and issue is created when the template reaches it, and is
+  * not kept.
+  */
+ private boolean streamingRender;
+ /**
+  * The most requests, to look up issues, that are made at the same time
+  * against each of JIRA and GitHub. Only more than one if an executor is given.
+  */
+ private Integer maxRequestsInFlightPerServer;
+ /**
+  * If true, the issues of the commits are found while the commits are walked.
+  * GitHub and JIRA issues are looked up as soon as they are found.
+  */
+ private boolean pipelined;
+ /**
+  * Directory where responses from JIRA and GitHub are stored, so that they can
+  * be used by later builds. Perhaps somewhere in <code>.git</code>.<br>
+  * <code>.git/git-changelog-cache</code>
+  */
+ private String restCacheDirectory;
+ /**
+  * Minutes that a response in {@link #restCacheDirectory} is used.
+  */
+ private Integer restCacheTtlMinutes;
+ /**
+  * File where the changelog up to the newest tagged commit is stored, so that
+  * later builds only walk and create what is newer.
+  */
+ private String incrementalStateFile;
+ /**
+  * Folder where changelogs are stored, keyed by range and settings, to be used
+  * by later renders of the same changelog.
+  */
+ private String snapshotDirectory;
 
  public Settings() {
  }
@@ -352,4 +390,60 @@ public class Settings {
  public Map<String, Object> getExtendedVariables() {
   return extendedVariables;
  }
+
+ public void setStreamingRender(boolean streamingRender) {
+  this.streamingRender = streamingRender;
+ }
+
+ public boolean isStreamingRender() {
+  return streamingRender;
+ }
+
+ public void setMaxRequestsInFlightPerServer(Integer maxRequestsInFlightPerServer) {
+  this.maxRequestsInFlightPerServer = maxRequestsInFlightPerServer;
+ }
+
+ public Integer getMaxRequestsInFlightPerServer() {
+  return fromNullable(maxRequestsInFlightPerServer).or(DEFAULT_MAX_REQUESTS_IN_FLIGHT_PER_SERVER);
+ }
+
+ public void setPipelined(boolean pipelined) {
+  this.pipelined = pipelined;
+ }
+
+ public boolean isPipelined() {
+  return pipelined;
+ }
+
+ public void setRestCacheDirectory(String restCacheDirectory) {
+  this.restCacheDirectory = restCacheDirectory;
+ }
+
+ public Optional<String> getRestCacheDirectory() {
+  return fromNullable(emptyToNull(restCacheDirectory));
+ }
+
+ public void setRestCacheTtlMinutes(Integer restCacheTtlMinutes) {
+  this.restCacheTtlMinutes = restCacheTtlMinutes;
+ }
+
+ public Integer getRestCacheTtlMinutes() {
+  return fromNullable(restCacheTtlMinutes).or(DEFAULT_REST_CACHE_TTL_MINUTES);
+ }
+
+ public void setIncrementalStateFile(String incrementalStateFile) {
+  this.incrementalStateFile = incrementalStateFile;
+ }
+
+ public Optional<String> getIncrementalStateFile() {
+  return fromNullable(emptyToNull(incrementalStateFile));
+ }
+
+ public void setSnapshotDirectory(String snapshotDirectory) {
+  this.snapshotDirectory = snapshotDirectory;
+ }
+
+ public Optional<String> getSnapshotDirectory() {
+  return fromNullable(emptyToNull(snapshotDirectory));
+ }
 }
@@ -0,0 +1,130 @@
+package se.bjurr.gitchangelog.internal.templates;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.cache.CacheBuilder.newBuilder;
+import static com.google.common.hash.Hashing.sha1;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+/**
+ * Compiled templates of all changelogs rendered in the process. A template in a
+ * file is keyed by its path, modification time and length. Other templates are
+ * keyed by a hash of their content. A compiled {@link Mustache} can be executed
+ * by several threads at once.
+ */
+public class TemplateCache {
+ public static final long DEFAULT_MAXIMUM_SIZE = 100;
+
+ private static TemplateCache templateCache = new TemplateCache(DEFAULT_MAXIMUM_SIZE);
+
+ private final Cache<String, Mustache> cache;
+
+ TemplateCache(long maximumSize) {
+  cache = newBuilder()//
+    .maximumSize(maximumSize)//
+    .recordStats()//
+    .build();
+ }
+
+ public static synchronized TemplateCache templateCache() {
+  return templateCache;
+ }
+
+ /**
+  * Replaces the shared cache with an empty one, holding at most the given
+  * number of templates.
+  */
+ public static synchronized void setMaximumSize(long maximumSize) {
+  templateCache = new TemplateCache(maximumSize);
+ }
+
+ public CacheStats getStats() {
+  return cache.stats();
+ }
+
+ /**
+  * The template given as content, or else found at the path. The path is
+  * looked up on the classpath first, then on the filesystem.
+  */
+ public Mustache getTemplate(String templatePath, String templateContent) {
+  if (templateContent != null) {
+   return getCompiled("content:" + hash(templatePath, templateContent), templatePath, templateContent);
+  }
+  checkArgument(templatePath != null, "You must specify a template!");
+  URL resource = findResource(templatePath);
+  try {
+   if (resource != null && "file".equals(resource.getProtocol())) {
+    return getCompiled(new File(resource.toURI()), templatePath);
+   }
+   if (resource != null) {
+    String content = Resources.toString(resource, UTF_8);
+    return getCompiled("content:" + hash(templatePath, content), templatePath, content);
+   }
+  } catch (Exception e) {
+   throw propagate(e);
+  }
+  File file = new File(templatePath);
+  if (!file.isFile()) {
+   throw new RuntimeException("Cannot find on classpath (" + templatePath + ") or filesystem ("
+     + file.getAbsolutePath() + ").");
+  }
+  return getCompiled(file, templatePath);
+ }
+
+ private Mustache getCompiled(final File file, final String templatePath) {
+  String key = "file:" + file.getAbsolutePath() + ":" + file.lastModified() + ":" + file.length();
+  return get(key, new Callable<Mustache>() {
+   @Override
+   public Mustache call() throws IOException {
+    return compile(templatePath, Files.toString(file, UTF_8));
+   }
+  });
+ }
+
+ private Mustache getCompiled(String key, final String templatePath, final String templateContent) {
+  return get(key, new Callable<Mustache>() {
+   @Override
+   public Mustache call() {
+    return compile(templatePath, templateContent);
+   }
+  });
+ }
+
+ private Mustache get(String key, Callable<Mustache> compiler) {
+  try {
+   return cache.get(key, compiler);
+  } catch (ExecutionException e) {
+   throw propagate(e.getCause());
+  }
+ }
+
+ private static Mustache compile(String templatePath, String templateContent) {
+  return new DefaultMustacheFactory().compile(new StringReader(templateContent), templatePath);
+ }
+
+ private static String hash(String templatePath, String templateContent) {
+  return sha1().hashBytes((templatePath + "\0" + templateContent).getBytes(UTF_8)).toString();
+ }
+
+ private static URL findResource(String templatePath) {
+  try {
+   return Resources.getResource(templatePath);
+  } catch (IllegalArgumentException e) {
+   return null;
+  }
+ }
+}
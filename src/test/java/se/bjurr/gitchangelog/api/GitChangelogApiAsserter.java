@@ -6,6 +6,7 @@ import static org.junit.Assert.assertEquals;
 import static se.bjurr.gitchangelog.api.GitChangelogApi.gitChangelogApiBuilder;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.ZERO_COMMIT;
 
+import java.io.ByteArrayOutputStream;
 import java.net.URL;
 
 import com.google.common.io.Resources;
@@ -74,6 +75,13 @@ public class GitChangelogApiAsserter {
     .withTemplatePath(templatePath) //
     .render() //
     .trim());
+
+  // Test streaming render
+  ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+  gitChangelogApiBuilder //
+    .withStreamingRender(true) //
+    .render(outputStream, UTF_8);
+  assertEquals("Streaming: " + file, expected, new String(outputStream.toByteArray(), UTF_8).trim());
  }
 
  private String toJson(Object object) {
@@ -2,28 +2,48 @@ package se.bjurr.gitchangelog.api;
 
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.collect.ImmutableMap.of;
+import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
 import static com.google.common.io.Resources.getResource;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.jgit.api.ResetCommand.ResetType.HARD;
 import static org.junit.Assert.assertEquals;
+import static se.bjurr.gitchangelog.api.ChangelogRange.changelogRange;
 import static se.bjurr.gitchangelog.api.GitChangelogApi.gitChangelogApiBuilder;
+import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.REF_MASTER;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.ZERO_COMMIT;
 import static se.bjurr.gitchangelog.internal.integrations.rest.RestClient.mock;
+import static se.bjurr.gitchangelog.internal.model.ChangelogSnapshot.readWatermark;
 
+import java.io.File;
 import java.net.URL;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
 
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import se.bjurr.gitchangelog.internal.integrations.github.GitHubClientFactory;
 import se.bjurr.gitchangelog.internal.integrations.jira.JiraClientFactory;
 import se.bjurr.gitchangelog.internal.integrations.rest.RestClientMock;
 
+import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import com.google.gson.GsonBuilder;
 
 public class GitChangelogApiTest {
+ @Rule
+ public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
  private RestClientMock mockedRestClient;
+ private Git git;
+ private long commitTime = 1400000000000L;
 
  @Before
  public void before() throws Exception {
@@ -32,7 +52,7 @@ public class GitChangelogApiTest {
 
   mockedRestClient = new RestClientMock();
   mockedRestClient //
-    .addMockedResponse("/repos/tomasbjerre/git-changelog-lib/issues?state=all",
+    .addMockedResponse("/repos/tomasbjerre/git-changelog-lib/issues?state=all&per_page=100&page=1",
       Resources.toString(getResource("github-issues.json"), UTF_8)) //
     .addMockedResponse("/jira/rest/api/2/issue/JIR-1234?fields=parent,summary",
       Resources.toString(getResource("jira-issue-jir-1234.json"), UTF_8)) //
@@ -131,6 +151,188 @@ public class GitChangelogApiTest {
     .trim());
  }
 
+ @Test
+ public void testThatFileIsWrittenWithUtf8() throws Exception {
+  File file = new File(temporaryFolder.getRoot(), "dir/CHANGELOG.md");
+  GitChangelogApi gitChangelogApi = gitChangelogApiBuilder()//
+    .withFromCommit(ZERO_COMMIT)//
+    .withTemplateContent("\u00c4ndringar {{#tags}}{{name}} {{/tags}}");
+
+  gitChangelogApi.toFile(file.getPath());
+
+  assertThat(Files.toString(file, UTF_8)).isEqualTo(gitChangelogApi.render());
+  assertThat(Files.toString(file, UTF_8)).startsWith("\u00c4ndringar ");
+  assertThat(file.getParentFile().list()).containsOnly("CHANGELOG.md");
+ }
+
+ @Test
+ public void testThatFileWithShortNameIsWritten() throws Exception {
+  File file = new File(temporaryFolder.getRoot(), "C");
+
+  gitChangelogApiBuilder()//
+    .withTemplateContent("changelog")//
+    .toFile(file.getPath());
+
+  assertThat(Files.toString(file, UTF_8)).isEqualTo("changelog");
+ }
+
+ @Test
+ public void testThatRangesCanBeRenderedTogether() throws Exception {
+  String template = "{{#commits}}{{hash}} {{/commits}}{{#issues}}{{name}} {{/issues}}";
+  String full = gitChangelogApiBuilder()//
+    .withTemplateContent(template)//
+    .render();
+  String none = gitChangelogApiBuilder()//
+    .withFromRef(REF_MASTER)//
+    .withTemplateContent(template)//
+    .render();
+
+  List<String> rendered = gitChangelogApiBuilder()//
+    .withTemplateContent(template)//
+    .render(newArrayList(//
+      changelogRange(), //
+      changelogRange().withFromRef(REF_MASTER).withToRef(REF_MASTER), //
+      changelogRange().withFromCommit(ZERO_COMMIT).withToRef(REF_MASTER)));
+
+  assertThat(rendered).containsExactly(full, none, full);
+ }
+
+ @Test
+ public void testThatSnapshotIsRenderedWithOtherTemplates() throws Exception {
+  File snapshots = temporaryFolder.newFolder("snapshots");
+  String tagsTemplate = "{{#tags}}{{name}}:{{#issues}}{{name}} {{issue}} {{title}} {{link}}"
+    + "{{#commits}}{{hash}}{{/commits}}{{#authors}}{{authorName}}{{/authors}}{{/issues}}"
+    + "{{#authors}}{{authorEmail}}{{/authors}}{{/tags}}";
+  String commitsTemplate = "{{#commits}}{{hash}} {{commitTime}} {{messageTitle}}{{/commits}}";
+  String expectedTags = gitChangelogApiBuilder()//
+    .withTemplateContent(tagsTemplate)//
+    .render();
+  String expectedCommits = gitChangelogApiBuilder()//
+    .withTemplateContent(commitsTemplate)//
+    .render();
+
+  assertThat(gitChangelogApiBuilder()//
+    .withSnapshotDirectory(snapshots.getPath())//
+    .withTemplateContent(tagsTemplate)//
+    .render()).isEqualTo(expectedTags);
+  assertThat(snapshots.list()).hasSize(1);
+  GitChangelogApi fromSnapshot = gitChangelogApiBuilder()//
+    .withSnapshotDirectory(snapshots.getPath())//
+    .withTemplateContent(commitsTemplate);
+  assertThat(fromSnapshot.render()).isEqualTo(expectedCommits);
+  assertThat(fromSnapshot.getChangelog().getCommits()) //
+    .isNotSameAs(fromSnapshot.getChangelog().getCommits());
+  assertThat(snapshots.list()).hasSize(1);
+
+  gitChangelogApiBuilder()//
+    .withSnapshotDirectory(snapshots.getPath())//
+    .withNoIssueName("Other")//
+    .render();
+  assertThat(snapshots.list()).hasSize(2);
+
+  List<Object> cyclic = newArrayList();
+  cyclic.add(cyclic);
+  assertThat(gitChangelogApiBuilder()//
+    .withSnapshotDirectory(snapshots.getPath())//
+    .withTemplateContent(commitsTemplate)//
+    .withExtendedVariables(newHashMap(of("cyclic", (Object) cyclic)))//
+    .render()).isEqualTo(expectedCommits);
+  assertThat(snapshots.list()).hasSize(2);
+ }
+
+ @Test
+ public void testThatIncrementalChangelogIsTheWholeChangelog() throws Exception {
+  File stateFile = new File(temporaryFolder.getRoot(), "state");
+  git = Git.init().setDirectory(temporaryFolder.newFolder("repo")).call();
+  commit("Initial #1", "alice");
+  RevCommit v1 = commit("Fix #2", "bob");
+  tag("v1", v1);
+  commit("More #1", "carol");
+  commit("Merge other", "carol");
+  commit("Other #3", "bob");
+  assertThat(renderIncrementally(stateFile)).isEqualTo(renderWhole());
+  assertThat(readWatermark(stateFile).get().getWatermark()).isEqualTo(v1);
+
+  RevCommit v2 = commit("Fix #2 again", "alice");
+  tag("v2", v2);
+  commit("Merge more", "bob");
+  commit("Last #3", "carol");
+  assertThat(renderIncrementally(stateFile)).isEqualTo(renderWhole());
+  assertThat(readWatermark(stateFile).get().getWatermark()).isEqualTo(v2);
+
+  stateFile.setLastModified(1000L);
+  assertThat(renderIncrementally(stateFile)).isEqualTo(renderWhole());
+  commit("Untagged #4", "dave");
+  assertThat(renderIncrementally(stateFile)).isEqualTo(renderWhole());
+  assertThat(stateFile.lastModified()).isEqualTo(1000L);
+ }
+
+ @Test
+ public void testThatIncrementalChangelogIsWalkedAgainWhenTagsBeforeItOrHistoryChange() throws Exception {
+  File stateFile = new File(temporaryFolder.getRoot(), "state");
+  git = Git.init().setDirectory(temporaryFolder.newFolder("repo")).call();
+  RevCommit first = commit("Initial #1", "alice");
+  RevCommit v1 = commit("Fix #2", "bob");
+  tag("v1", v1);
+  tag("v2", commit("More #1", "carol"));
+  commit("Other #3", "bob");
+  assertThat(renderIncrementally(stateFile)).isEqualTo(renderWhole());
+
+  tag("v0", first);
+  assertThat(renderIncrementally(stateFile)) //
+    .isEqualTo(renderWhole()) //
+    .contains("v0:");
+
+  git.reset().setMode(HARD).setRef(v1.getName()).call();
+  git.tagDelete().setTags("v2").call();
+  commit("Rewritten #4", "dave");
+  assertThat(renderIncrementally(stateFile)) //
+    .isEqualTo(renderWhole()) //
+    .doesNotContain("More");
+  assertThat(readWatermark(stateFile).get().getWatermark()).isEqualTo(v1);
+ }
+
+ private String renderIncrementally(File stateFile) {
+  return changelogOfRepo()//
+    .withIncrementalStateFile(stateFile.getPath())//
+    .render();
+ }
+
+ private String renderWhole() {
+  return changelogOfRepo().render();
+ }
+
+ private GitChangelogApi changelogOfRepo() {
+  return gitChangelogApiBuilder()//
+    .withFromRepo(git.getRepository().getDirectory().getPath())//
+    .withFromCommit(ZERO_COMMIT)//
+    .withToRef(REF_MASTER)//
+    .withIgnoreCommitsWithMesssage("^Merge.*")//
+    .withCustomIssue("Bug", "#([0-9]+)", "http://bugs/${PATTERN_GROUP_1}")//
+    .withTemplateContent("{{#commits}}{{hash}} {{authorName}} {{messageTitle}}\n{{/commits}}"
+      + "{{#tags}}{{name}}:{{#commits}}{{hash}}{{/commits}} {{#authors}}{{authorName}}"
+      + "({{#commits}}{{hash}}{{/commits}}){{/authors}} {{#issues}}{{issue}} {{link}}"
+      + "({{#commits}}{{hash}}{{/commits}}{{#authors}}{{authorName}}{{/authors}}){{/issues}}\n{{/tags}}"
+      + "{{#authors}}{{authorName}}({{#commits}}{{hash}}{{/commits}}){{/authors}}\n"
+      + "{{#issues}}{{name}} {{issue}}({{#commits}}{{hash}}{{/commits}}{{#authors}}{{authorName}}{{/authors}})"
+      + "{{/issues}}");
+ }
+
+ /**
+  * Commits a second after the previous commit, so that the order of the
+  * commits does not depend on how fast they are made.
+  */
+ private RevCommit commit(String message, String author) throws Exception {
+  commitTime += 1000;
+  PersonIdent ident = new PersonIdent(author, author + "@example.com", new Date(commitTime),
+    TimeZone.getTimeZone("UTC"));
+  return git.commit().setMessage(message).setAuthor(ident).setCommitter(ident).call();
+ }
+
+ private void tag(String name, RevCommit commit) throws Exception {
+  git.tag().setName(name).setObjectId(commit).call();
+ }
+
  private String toJson(Object object) {
   return new GsonBuilder().setPrettyPrinting().create().toJson(object);
  }
@@ -60,7 +60,7 @@ public class TemplatesTest {
 
   RestClientMock mockedRestClient = new RestClientMock();
   mockedRestClient //
-    .addMockedResponse("/repos/tomasbjerre/git-changelog-lib/issues?state=all",
+    .addMockedResponse("/repos/tomasbjerre/git-changelog-lib/issues?state=all&per_page=100&page=1",
       Resources.toString(getResource("github-issues.json"), UTF_8)) //
     .addMockedResponse("/jira/rest/api/2/issue/JIR-1234?fields=parent,summary",
       Resources.toString(getResource("jira-issue-jir-1234.json"), UTF_8)) //
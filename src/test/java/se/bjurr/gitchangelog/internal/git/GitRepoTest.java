@@ -1,5 +1,6 @@
 package se.bjurr.gitchangelog.internal.git;
 
+import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Lists.reverse;
 import static org.assertj.core.api.Assertions.assertThat;
 import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.REF_MASTER;
@@ -104,6 +105,34 @@ public class GitRepoTest {
     .startsWith("e3766e2d4bc6d20");
  }
 
+ @Test
+ public void testThatRangesCanBeListedTogether() {
+  GitRepo gitRepo = getGitRepo();
+  ObjectId firstCommit = gitRepo.getCommit(ZERO_COMMIT);
+  ObjectId lastCommit = gitRepo.getRef(REF_MASTER);
+  List<GitCommit> all = gitRepo.getGitRepoData(firstCommit, lastCommit, "No tag").getGitCommits();
+  ObjectId middleCommit = all.get(all.size() / 2).getId();
+  ObjectId lateCommit = all.get(2).getId();
+  List<GitRange> ranges = newArrayList(//
+    new GitRange(firstCommit, lastCommit), //
+    new GitRange(firstCommit, middleCommit), //
+    new GitRange(middleCommit, lateCommit), //
+    new GitRange(middleCommit, lastCommit), //
+    new GitRange(lastCommit, middleCommit));
+
+  List<GitRepoData> together = gitRepo.getGitRepoData(ranges, "No tag");
+
+  assertThat(together).hasSize(ranges.size());
+  for (int i = 0; i < ranges.size(); i++) {
+   GitRange range = ranges.get(i);
+   GitRepoData alone = gitRepo.getGitRepoData(range.getFrom(), range.getTo(), "No tag");
+   assertThat(together.get(i).getGitCommits()).as(range.toString()).isEqualTo(alone.getGitCommits());
+   assertThat(together.get(i).getGitTags().toString()).as(range.toString()).isEqualTo(
+     alone.getGitTags().toString());
+  }
+  assertThat(together.get(4).getGitCommits()).isEmpty();
+ }
+
  private GitRepo getGitRepo() {
   return new GitRepo(gitRepoFile);
  }
@@ -0,0 +1,53 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static se.bjurr.gitchangelog.internal.git.PeeledTagIndex.peeledTagIndex;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ListMultimap;
+
+public class PeeledTagIndexTest {
+ @Rule
+ public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+ private Git git;
+
+ @Before
+ public void before() throws Exception {
+  git = Git.init().setDirectory(temporaryFolder.newFolder("repo")).call();
+ }
+
+ @Test
+ public void testThatMovedAnnotatedTagIsPeeledAgain() throws Exception {
+  RevCommit first = git.commit().setMessage("first").call();
+  RevCommit second = git.commit().setMessage("second").call();
+  git.tag().setName("v1").setMessage("v1").setObjectId(first).call();
+  assertThat(getTagNamesPerCommit().get(first)).containsExactly("refs/tags/v1");
+
+  git.tag().setName("v1").setMessage("v1 moved").setObjectId(second).setForceUpdate(true).call();
+  assertThat(getTagNamesPerCommit().get(first)).isEmpty();
+  assertThat(getTagNamesPerCommit().get(second)).containsExactly("refs/tags/v1");
+ }
+
+ @Test
+ public void testThatDeletedTagIsRemoved() throws Exception {
+  RevCommit first = git.commit().setMessage("first").call();
+  git.tag().setName("v1").setObjectId(first).call();
+  git.tag().setName("v2").setObjectId(first).call();
+  assertThat(getTagNamesPerCommit().get(first)).containsExactly("refs/tags/v1", "refs/tags/v2");
+
+  git.tagDelete().setTags("v1").call();
+  assertThat(getTagNamesPerCommit().get(first)).containsExactly("refs/tags/v2");
+ }
+
+ private ListMultimap<ObjectId, String> getTagNamesPerCommit() throws Exception {
+  return peeledTagIndex(git.getRepository()).getTagNamesPerCommit(git.getRepository());
+ }
+}
@@ -0,0 +1,55 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static se.bjurr.gitchangelog.internal.git.RefsSnapshot.refsSnapshot;
+
+import java.io.File;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RefIndexTest {
+ @Rule
+ public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+ private Git git;
+
+ @Before
+ public void before() throws Exception {
+  git = Git.init().setDirectory(temporaryFolder.newFolder("repo")).call();
+ }
+
+ @Test
+ public void testThatEditedRefIsFoundAgain() throws Exception {
+  RevCommit first = git.commit().setMessage("first").call();
+  RevCommit second = git.commit().setMessage("second").call();
+  git.branchCreate().setName("feature").setStartPoint(first).call();
+  age(git.getRepository().getDirectory());
+  RefIndex refIndex = new RefIndex(git.getRepository());
+  RefsSnapshot snapshot = refsSnapshot(git.getRepository());
+  assertThat(snapshot.isModified()).isFalse();
+  assertThat(refIndex.findPeeled("feature").get()).isEqualTo(first);
+
+  git.branchCreate().setName("feature").setStartPoint(second).setForce(true).call();
+  assertThat(snapshot.isModified()).isTrue();
+  assertThat(refIndex.findPeeled("feature").get()).isEqualTo(second);
+ }
+
+ /**
+  * Makes every file old, so that the snapshot is not too close to them to be
+  * trusted.
+  */
+ private void age(File file) {
+  file.setLastModified(System.currentTimeMillis() - 60000);
+  File[] children = file.listFiles();
+  if (children != null) {
+   for (File child : children) {
+    age(child);
+   }
+  }
+ }
+}
@@ -0,0 +1,75 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.jgit.api.ResetCommand.ResetType.HARD;
+import static se.bjurr.gitchangelog.internal.git.RootCommitResolver.rootCommitResolver;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RootCommitResolverTest {
+ @Rule
+ public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+ private Git git;
+ private long commitTime = 1400000000000L;
+
+ @Before
+ public void before() throws Exception {
+  git = Git.init().setDirectory(temporaryFolder.newFolder("repo")).call();
+ }
+
+ @Test
+ public void testThatRootIsKeptWhenTipIsFastForwarded() throws Exception {
+  RevCommit root = commit("root");
+  assertThat(getRootCommit(commit("second"))).isEqualTo(root);
+  assertThat(getRootCommit(commit("third"))).isEqualTo(root);
+ }
+
+ @Test
+ public void testThatRootIsFoundAgainWhenTipIsFastForwardedPastNewRoot() throws Exception {
+  commitTime += 10000;
+  commit("root");
+  assertThat(getRootCommit(commit("second"))).isNotNull();
+
+  git.checkout().setOrphan(true).setName("other").call();
+  commitTime -= 20000;
+  RevCommit otherRoot = commit("older root");
+  git.checkout().setName("master").call();
+  ObjectId merge = git.merge().include(otherRoot).call().getNewHead();
+  assertThat(getRootCommit(merge)).isEqualTo(otherRoot);
+ }
+
+ @Test
+ public void testThatRootIsFoundAgainWhenHistoryIsRewritten() throws Exception {
+  commit("root");
+  assertThat(getRootCommit(commit("second"))).isNotNull();
+
+  git.checkout().setOrphan(true).setName("other").call();
+  RevCommit newRoot = commit("new root");
+  RevCommit tip = commit("new second");
+  git.checkout().setName("master").call();
+  git.reset().setMode(HARD).setRef(tip.getName()).call();
+  assertThat(getRootCommit(tip)).isEqualTo(newRoot);
+ }
+
+ private ObjectId getRootCommit(ObjectId tip) throws Exception {
+  return rootCommitResolver(git.getRepository()).getRootCommit(git.getRepository(), tip);
+ }
+
+ private RevCommit commit(String message) throws Exception {
+  commitTime += 1000;
+  PersonIdent ident = new PersonIdent("author", "author@example.com", new Date(commitTime),
+    TimeZone.getTimeZone("UTC"));
+  return git.commit().setMessage(message).setAuthor(ident).setCommitter(ident).call();
+ }
+}
@@ -0,0 +1,167 @@
+package se.bjurr.gitchangelog.internal.git;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static se.bjurr.gitchangelog.internal.git.TagSegmentIndex.tagSegmentIndex;
+
+import java.io.File;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.bjurr.gitchangelog.internal.git.model.GitCommit;
+
+public class TagSegmentIndexTest {
+ @Rule
+ public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+ private Git git;
+ private GitRepo gitRepo;
+
+ @Before
+ public void before() throws Exception {
+  git = Git.init().setDirectory(temporaryFolder.getRoot()).call();
+  gitRepo = new GitRepo(temporaryFolder.getRoot());
+ }
+
+ @Test
+ public void testThatTagRangesAreTakenFromIndex() throws Exception {
+  RevCommit v0 = commit("first");
+  git.tag().setName("v0").setObjectId(v0).call();
+  commit("second");
+  RevCommit v1 = commit("third");
+  git.tag().setName("v1").setObjectId(v1).call();
+  commit("fourth");
+  RevCommit v2 = commit("fifth");
+  git.tag().setName("v2").setObjectId(v2).call();
+
+  assertThat(messages(gitRepo.getGitRepoData(v1, v2, "No tag"))).containsExactly("fifth", "fourth");
+  assertThat(indexed()).isEqualTo(0);
+  assertThat(messages(gitRepo.getGitRepoData(v1, v2, "No tag"))).containsExactly("fifth", "fourth");
+  assertThat(indexed()).isEqualTo(5);
+  assertThat(messages(gitRepo.getGitRepoData(v0, v2, "No tag"))) //
+    .containsExactly("fifth", "fourth", "third", "second", "first");
+  assertThat(messages(gitRepo.getGitRepoData(v2, v1, "No tag"))).isEmpty();
+ }
+
+ @Test
+ public void testThatUntaggedRangesAreNotIndexed() throws Exception {
+  RevCommit v1 = commit("first");
+  git.tag().setName("v1").setObjectId(v1).call();
+  RevCommit head = commit("second");
+
+  assertThat(messages(gitRepo.getGitRepoData(v1, head, "No tag"))).containsExactly("second", "first");
+  assertThat(messages(gitRepo.getGitRepoData(v1, head, "No tag"))).containsExactly("second", "first");
+  assertThat(indexed()).isEqualTo(0);
+ }
+
+ @Test
+ public void testThatNewTagsAreIndexed() throws Exception {
+  RevCommit v0 = commit("first");
+  git.tag().setName("v0").setObjectId(v0).call();
+  RevCommit v1 = commit("second");
+  git.tag().setName("v1").setObjectId(v1).call();
+  gitRepo.getGitRepoData(v0, v1, "No tag");
+  gitRepo.getGitRepoData(v0, v1, "No tag");
+  assertThat(indexed()).isEqualTo(2);
+
+  RevCommit v2 = commit("third");
+  git.tag().setName("v2").setObjectId(v2).call();
+  assertThat(messages(gitRepo.getGitRepoData(v1, v2, "No tag"))).containsExactly("third");
+  assertThat(indexed()).isEqualTo(3);
+ }
+
+ @Test
+ public void testThatIndexedRangeIsWalkedRange() throws Exception {
+  RevCommit first = commit("first");
+  git.tag().setName("v0").setObjectId(first).call();
+  git.branchCreate().setName("feature").call();
+  commit("on master");
+  git.checkout().setName("feature").call();
+  commit("on feature");
+  git.checkout().setName("master").call();
+  git.merge().include(git.getRepository().getRef("feature")).call();
+  RevCommit merge = git.log().setMaxCount(1).call().iterator().next();
+  git.tag().setName("v1").setObjectId(merge).call();
+
+  List<GitRepoData> walked = gitRepo.getGitRepoData(newArrayList(new GitRange(first, merge)), "No tag");
+  gitRepo.getGitRepoData(first, merge, "No tag");
+  List<String> indexed = messages(gitRepo.getGitRepoData(first, merge, "No tag"));
+  assertThat(indexed()).isEqualTo(4);
+  assertThat(indexed).hasSize(4);
+  assertThat(indexed).isEqualTo(messages(walked.get(0)));
+ }
+
+ @Test
+ public void testThatRangesBetweenTagsOnBranchesAreWalkedRanges() throws Exception {
+  RevCommit first = commit("first");
+  git.tag().setName("v0").setObjectId(first).call();
+  RevCommit forked = commit("forked");
+  git.branchCreate().setName("release").call();
+  commit("on master");
+  RevCommit v2 = commit("more on master");
+  git.tag().setName("v2").setObjectId(v2).call();
+  git.checkout().setName("release").call();
+  RevCommit v11 = commit("on release");
+  git.tag().setName("v1.1").setObjectId(v11).call();
+  git.checkout().setName("master").call();
+
+  gitRepo.getGitRepoData(first, v2, "No tag");
+  for (RevCommit[] range : new RevCommit[][] { { first, v2 }, { first, v11 }, { v11, v2 }, { v2, v11 },
+    { forked, v2 } }) {
+   List<GitRepoData> walked = gitRepo.getGitRepoData(newArrayList(new GitRange(range[0], range[1])), "No tag");
+   assertThat(messages(gitRepo.getGitRepoData(range[0], range[1], "No tag"))) //
+     .isEqualTo(messages(walked.get(0)));
+  }
+  assertThat(messages(gitRepo.getGitRepoData(v11, v2, "No tag"))).containsExactly("more on master", "on master");
+  assertThat(indexed()).isEqualTo(5);
+ }
+
+ @Test
+ public void testThatDeletedAndPrunedTagsAreNotWalked() throws Exception {
+  RevCommit v0 = commit("first");
+  git.tag().setName("v0").setObjectId(v0).call();
+  RevCommit v1 = commit("second");
+  git.tag().setName("v1").setObjectId(v1).call();
+  git.branchCreate().setName("feature").call();
+  git.checkout().setName("feature").call();
+  RevCommit vx = commit("on feature");
+  git.tag().setName("vx").setObjectId(vx).call();
+  git.checkout().setName("master").call();
+  gitRepo.getGitRepoData(v0, v1, "No tag");
+  gitRepo.getGitRepoData(v0, v1, "No tag");
+  assertThat(indexed()).isEqualTo(3);
+
+  git.tagDelete().setTags("vx").call();
+  git.branchDelete().setBranchNames("feature").setForce(true).call();
+  File object = new File(git.getRepository().getDirectory(), "objects/" + vx.name().substring(0, 2) + "/"
+    + vx.name().substring(2));
+  assertThat(object.delete()).isTrue();
+  RevCommit v2 = commit("third");
+  git.tag().setName("v2").setObjectId(v2).call();
+
+  assertThat(messages(gitRepo.getGitRepoData(v1, v2, "No tag"))).containsExactly("third");
+  assertThat(indexed()).isEqualTo(4);
+ }
+
+ private int indexed() {
+  return tagSegmentIndex(git.getRepository()).size();
+ }
+
+ private RevCommit commit(String message) throws Exception {
+  return git.commit().setMessage(message).call();
+ }
+
+ private List<String> messages(GitRepoData gitRepoData) {
+  List<String> messages = newArrayList();
+  for (GitCommit gitCommit : gitRepoData.getGitCommits()) {
+   messages.add(gitCommit.getMessage());
+  }
+  return messages;
+ }
+}
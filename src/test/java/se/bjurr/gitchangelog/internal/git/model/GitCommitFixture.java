@@ -0,0 +1,21 @@
+package se.bjurr.gitchangelog.internal.git.model;
+
+import static java.lang.String.format;
+
+import java.util.Date;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Commits that are not in a repository. The i:th commit is made at second i,
+ * and i is also its id.
+ */
+public class GitCommitFixture {
+ private GitCommitFixture() {
+ }
+
+ public static GitCommit gitCommit(int i, String authorName, String message) {
+  return new GitCommit(authorName, authorName + "@example.com", new Date(i * 1000L), message,
+    ObjectId.fromString(format("%040d", i)));
+ }
+}
@@ -0,0 +1,73 @@
+package se.bjurr.gitchangelog.internal.integrations.github;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import se.bjurr.gitchangelog.internal.integrations.rest.RestClient;
+import se.bjurr.gitchangelog.internal.integrations.rest.RestClientMock;
+
+public class GitHubIssueIndexTest {
+
+ private RestClientMock mockedRestClient;
+
+ @Before
+ public void before() {
+  mockedRestClient = new RestClientMock();
+  RestClient.mock(mockedRestClient);
+ }
+
+ @After
+ public void after() {
+  RestClient.mock(null);
+ }
+
+ @Test
+ public void testThatAllPagesAreRead() {
+  mockedRestClient //
+    .addMockedResponse("/repos/a/b/issues?state=all&per_page=100&page=1", issues(1, 100, "2016-01-01T00:00:00Z")) //
+    .addMockedResponse("/repos/a/b/issues?state=all&per_page=100&page=2", issues(101, 101, "2016-01-02T00:00:00Z"));
+  GitHubIssueIndex index = new GitHubIssueIndex("https://api.github.com/repos/a/b", new RestClient(0, MINUTES),
+    MINUTES.toMillis(1));
+
+  assertThat(index.getIssue(1).get().getTitle()).isEqualTo("Title 1");
+  assertThat(index.getIssue(101).get().getLink()).isEqualTo("https://github.com/a/b/issues/101");
+  assertThat(index.getIssue(101).get().getNumber()).isEqualTo("101");
+  assertThat(index.getIssue(102).isPresent()).isFalse();
+ }
+
+ @Test
+ public void testThatIssuesUpdatedSinceLastReadAreReadWhenNotFound() {
+  mockedRestClient //
+    .addMockedResponse("/repos/a/b/issues?state=all&per_page=100&page=1", issues(1, 2, "2016-01-01T00:00:00Z")) //
+    .addMockedResponse("/repos/a/b/issues?state=all&per_page=100&since=2016-01-01T00:00:00Z&page=1",
+      issues(3, 3, "2016-01-03T00:00:00Z"));
+  GitHubIssueIndex index = new GitHubIssueIndex("https://api.github.com/repos/a/b", new RestClient(0, MINUTES), 0);
+
+  assertThat(index.getIssue(2).get().getTitle()).isEqualTo("Title 2");
+  assertThat(index.getIssue(3).get().getTitle()).isEqualTo("Title 3");
+  assertThat(index.getIssue(1).get().getTitle()).isEqualTo("Title 1");
+ }
+
+ @Test
+ public void testThatIssueIsParsed() {
+  assertThat(GitHubIssueIndex.toNumber("#12").get()).isEqualTo(12);
+  assertThat(GitHubIssueIndex.toNumber("12").get()).isEqualTo(12);
+  assertThat(GitHubIssueIndex.toNumber("#ab").isPresent()).isFalse();
+ }
+
+ private String issues(int from, int to, String updatedAt) {
+  StringBuilder json = new StringBuilder("[");
+  for (int number = from; number <= to; number++) {
+   if (number != from) {
+    json.append(",");
+   }
+   json.append("{\"number\":" + number + ",\"title\":\"Title " + number
+     + "\",\"html_url\":\"https://github.com/a/b/issues/" + number + "\",\"updated_at\":\"" + updatedAt + "\"}");
+  }
+  return json.append("]").toString();
+ }
+}
@@ -0,0 +1,67 @@
+package se.bjurr.gitchangelog.internal.integrations.jira;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.io.Resources.getResource;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import se.bjurr.gitchangelog.internal.integrations.rest.RestClient;
+import se.bjurr.gitchangelog.internal.integrations.rest.RestClientMock;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Resources;
+
+public class DefaultJiraClientTest {
+
+ private DefaultJiraClient jiraClient;
+ private RestClientMock mockedRestClient;
+
+ @Before
+ public void before() {
+  jiraClient = new DefaultJiraClient("https://jiraserver/jira");
+  mockedRestClient = new RestClientMock();
+  RestClient.mock(mockedRestClient);
+ }
+
+ @After
+ public void after() {
+  RestClient.mock(null);
+ }
+
+ @Test
+ public void testThatIssuesAreFoundWithOneSearch() {
+  mockedRestClient
+    .addMockedResponse(
+      "/jira/rest/api/2/search?jql=key+in+%28JIR-1234%2CJIR-5262%29&fields=summary&maxResults=2",
+      "{\"startAt\":0,\"maxResults\":2,\"total\":2,\"issues\":[" //
+        + "{\"id\":\"139925\",\"key\":\"JIR-1234\",\"fields\":{\"summary\":\"Title of jira 1234\"}}," //
+        + "{\"id\":\"139926\",\"key\":\"JIR-5262\",\"fields\":{\"summary\":\"Title of jira 5262\"}}]}");
+
+  Map<String, JiraIssue> issues = jiraClient.getIssues(ImmutableList.of("JIR-5262", "JIR-1234", "JIR-5262"));
+
+  assertThat(issues).hasSize(2);
+  assertThat(issues.get("JIR-1234").getTitle()).isEqualTo("Title of jira 1234");
+  assertThat(issues.get("JIR-1234").getLink()).isEqualTo("https://jiraserver/jira/browse/");
+  assertThat(issues.get("JIR-5262").getTitle()).isEqualTo("Title of jira 5262");
+ }
+
+ @Test
+ public void testThatIssuesNotFoundBySearchAreResolvedOneByOne() throws Exception {
+  mockedRestClient
+    .addMockedResponse("/jira/rest/api/2/issue/JIR-1234?fields=parent,summary",
+      Resources.toString(getResource("jira-issue-jir-1234.json"), UTF_8))
+    .addMockedResponse("/jira/rest/api/2/issue/JIR-5262?fields=parent,summary",
+      Resources.toString(getResource("jira-issue-jir-5262.json"), UTF_8));
+
+  Map<String, JiraIssue> issues = jiraClient.getIssues(ImmutableList.of("JIR-1234", "JIR-5262", "JIR-0"));
+
+  assertThat(issues).hasSize(2);
+  assertThat(issues.get("JIR-1234").getTitle()).isEqualTo("Title of jira 1234");
+  assertThat(issues.get("JIR-5262").getTitle()).isEqualTo("The Title of jira 5262");
+ }
+}
@@ -0,0 +1,85 @@
+package se.bjurr.gitchangelog.internal.integrations.rest;
+
+import static com.google.common.base.Optional.of;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static se.bjurr.gitchangelog.internal.integrations.rest.ResponseCache.responseCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import se.bjurr.gitchangelog.internal.integrations.rest.ResponseCache.Loader;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheStats;
+
+public class ResponseCacheTest {
+ private RestClientMock mockedRestClient;
+
+ @Before
+ public void before() {
+  mockedRestClient = new RestClientMock();
+  RestClient.mock(mockedRestClient);
+ }
+
+ @After
+ public void after() {
+  RestClient.mock(null);
+ }
+
+ @Test
+ public void testThatResponsesAreSharedBetweenClients() {
+  mockedRestClient.addMockedResponse("/path?a=b", "the response");
+  CacheStats before = responseCache().getStats();
+
+  new RestClient(1, MINUTES).get("http://server/path?a=b");
+  new RestClient(1, MINUTES).get("http://server/path?a=b");
+  assertThat(new RestClient(1, MINUTES).get("http://server/path?a=b").get()).isEqualTo("the response");
+
+  CacheStats stats = responseCache().getStats().minus(before);
+  assertThat(stats.missCount()).isEqualTo(1);
+  assertThat(stats.hitCount()).isEqualTo(2);
+ }
+
+ @Test
+ public void testThatResponsesAreEvictedByWeight() {
+  ResponseCache responseCache = new ResponseCache(10 * 1000);
+  for (int i = 0; i < 100; i++) {
+   responseCache.get("key" + i, MINUTES.toMillis(1), load("response " + i));
+  }
+
+  assertThat(responseCache.getStats().evictionCount()).isGreaterThan(0);
+  assertThat(responseCache.get("key99", MINUTES.toMillis(1), load("other")).get().getBody()).isEqualTo("response 99");
+ }
+
+ @Test
+ public void testThatOldResponsesAreLoadedAgain() {
+  ResponseCache responseCache = new ResponseCache(10 * 1000);
+  responseCache.get("key", MINUTES.toMillis(1), load("response"));
+
+  assertThat(responseCache.get("key", 0, load("new response")).get().getBody()).isEqualTo("new response");
+ }
+
+ @Test
+ public void testThatExpiredResponsesAreValidated() throws Exception {
+  mockedRestClient.addMockedResponse("/path?a=b", "the response")//
+    .addMockedETag("/path?a=b", "\"v1\"");
+  RestClient restClient = new RestClient(1, MILLISECONDS);
+  restClient.get("http://server/path?a=b");
+  Thread.sleep(2);
+
+  mockedRestClient.addMockedResponse("/path?a=b", "not modified");
+  assertThat(restClient.get("http://server/path?a=b").get()).isEqualTo("the response");
+ }
+
+ private Loader load(final String response) {
+  return new Loader() {
+   @Override
+   public Optional<RestResponse> load(RestResponse stale) {
+    return of(new RestResponse(response, null, null));
+   }
+  };
+ }
+}
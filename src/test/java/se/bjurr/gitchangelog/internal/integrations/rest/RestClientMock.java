@@ -3,6 +3,8 @@ package se.bjurr.gitchangelog.internal.integrations.rest;
 import static com.google.common.base.Joiner.on;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
 import java.io.IOException;
@@ -14,6 +16,7 @@ import java.util.Map;
 
 public class RestClientMock extends RestClient {
  private final Map<String, String> mockedResponses = newHashMap();
+ private final Map<String, String> mockedETags = newHashMap();
 
  public RestClientMock() {
   super(0, MINUTES);
@@ -24,9 +27,22 @@ public class RestClientMock extends RestClient {
   return this;
  }
 
+ /**
+  * Responds with this ETag, and with <code>304 Not Modified</code> when it is
+  * given in <code>If-None-Match</code>.
+  */
+ public RestClientMock addMockedETag(String url, String eTag) {
+  mockedETags.put(url, eTag);
+  return this;
+ }
+
+ private static String toKey(URL url) {
+  return url.getPath() + "?" + url.getQuery();
+ }
+
  @Override
  public String getResponse(HttpURLConnection conn) throws Exception {
-  String key = conn.getURL().getPath() + "?" + conn.getURL().getQuery();
+  String key = toKey(conn.getURL());
   if (mockedResponses.containsKey(key)) {
    return mockedResponses.get(key);
   } else {
@@ -37,7 +53,24 @@ public class RestClientMock extends RestClient {
 
  @Override
  public HttpURLConnection openConnection(URL addr) throws Exception {
+  final String eTag = mockedETags.get(toKey(addr));
   return new HttpURLConnection(addr) {
+   @Override
+   public int getResponseCode() {
+    if (eTag != null && eTag.equals(getRequestProperty("If-None-Match"))) {
+     return HTTP_NOT_MODIFIED;
+    }
+    return HTTP_OK;
+   }
+
+   @Override
+   public String getHeaderField(String name) {
+    if ("ETag".equals(name)) {
+     return eTag;
+    }
+    return null;
+   }
+
    @Override
    public Map<String, List<String>> getHeaderFields() {
     Map<String, List<String>> map = newHashMap();
@@ -0,0 +1,111 @@
+package se.bjurr.gitchangelog.internal.integrations.rest;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class RestClientTest {
+ private HttpServer server;
+ private String url;
+ private final List<Integer> clientPorts = newArrayList();
+
+ @Before
+ public void before() throws IOException {
+  RestClient.mock(null);
+  server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+  server.createContext("/plain", new HttpHandler() {
+   @Override
+   public void handle(HttpExchange exchange) throws IOException {
+    respond(exchange, 200, "plain response".getBytes(UTF_8));
+   }
+  });
+  server.createContext("/gzip", new HttpHandler() {
+   @Override
+   public void handle(HttpExchange exchange) throws IOException {
+    assertThat(exchange.getRequestHeaders().getFirst("Accept-Encoding")).isEqualTo("gzip");
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+    gzip.write("gzipped response".getBytes(UTF_8));
+    gzip.close();
+    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+    respond(exchange, 200, compressed.toByteArray());
+   }
+  });
+  server.createContext("/missing", new HttpHandler() {
+   @Override
+   public void handle(HttpExchange exchange) throws IOException {
+    respond(exchange, 404, "not found".getBytes(UTF_8));
+   }
+  });
+  server.createContext("/slow", new HttpHandler() {
+   @Override
+   public void handle(HttpExchange exchange) throws IOException {
+    try {
+     Thread.sleep(2000);
+    } catch (InterruptedException e) {
+    }
+    respond(exchange, 200, "slow response".getBytes(UTF_8));
+   }
+  });
+  server.start();
+  url = "http://127.0.0.1:" + server.getAddress().getPort();
+ }
+
+ @After
+ public void after() {
+  server.stop(0);
+ }
+
+ private void respond(HttpExchange exchange, int code, byte[] body) throws IOException {
+  synchronized (clientPorts) {
+   clientPorts.add(exchange.getRemoteAddress().getPort());
+  }
+  exchange.sendResponseHeaders(code, body.length);
+  OutputStream os = exchange.getResponseBody();
+  os.write(body);
+  os.close();
+ }
+
+ @Test
+ public void testThatGzippedResponseIsDecoded() {
+  assertThat(new RestClient(0, MINUTES).get(url + "/gzip").get()).isEqualTo("gzipped response");
+ }
+
+ @Test
+ public void testThatConnectionIsReusedAfterError() {
+  RestClient restClient = new RestClient(0, MINUTES);
+  assertThat(restClient.get(url + "/plain?1").get()).isEqualTo("plain response");
+  assertThat(restClient.get(url + "/missing").isPresent()).isFalse();
+  assertThat(restClient.get(url + "/plain?2").get()).isEqualTo("plain response");
+
+  assertThat(clientPorts).hasSize(3);
+  assertThat(clientPorts.get(1)).isEqualTo(clientPorts.get(0));
+  assertThat(clientPorts.get(2)).isEqualTo(clientPorts.get(0));
+ }
+
+ @Test
+ public void testThatSlowServerTimesOut() {
+  RestClient restClient = new RestClient(0, MINUTES) //
+    .withTimeouts(1000, 200, MILLISECONDS);
+  long start = System.currentTimeMillis();
+  assertThat(restClient.get(url + "/slow").isPresent()).isFalse();
+  assertThat(System.currentTimeMillis() - start).isLessThan(1500);
+ }
+}
@@ -0,0 +1,146 @@
+package se.bjurr.gitchangelog.internal.integrations.rest;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static se.bjurr.gitchangelog.internal.integrations.rest.RestDiskCache.toKey;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.Files;
+
+public class RestDiskCacheTest {
+ @Rule
+ public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+ private File directory;
+ private RestClientMock mockedRestClient;
+
+ @Before
+ public void before() {
+  directory = new File(temporaryFolder.getRoot(), "cache");
+  mockedRestClient = new RestClientMock();
+  RestClient.mock(mockedRestClient);
+ }
+
+ @After
+ public void after() {
+  RestClient.mock(null);
+ }
+
+ @Test
+ public void testThatResponsesAreReadByLaterInstances() {
+  new RestDiskCache(directory).put("a", new RestResponse("response a", null, null));
+  new RestDiskCache(directory).put("b", new RestResponse("response b", null, null));
+  new RestDiskCache(directory).put("a", new RestResponse("response a2", null, null));
+
+  RestDiskCache later = new RestDiskCache(directory);
+  assertThat(later.get("a", MINUTES.toMillis(1)).get().getBody()).isEqualTo("response a2");
+  assertThat(later.get("b", MINUTES.toMillis(1)).get().getBody()).isEqualTo("response b");
+  assertThat(later.get("c", MINUTES.toMillis(1)).isPresent()).isFalse();
+ }
+
+ @Test
+ public void testThatExpiredResponsesAreNotUsed() {
+  new RestDiskCache(directory).put("a", new RestResponse("response a", null, null));
+
+  assertThat(new RestDiskCache(directory).get("a", 0).isPresent()).isFalse();
+ }
+
+ @Test
+ public void testThatIndexIsCompacted() {
+  RestDiskCache restDiskCache = new RestDiskCache(directory);
+  for (int i = 0; i < 200; i++) {
+   restDiskCache.put("a", new RestResponse("response " + i, null, null));
+  }
+
+  assertThat(new File(directory, "index").length()).isLessThan(50 * 100);
+  assertThat(new RestDiskCache(directory).get("a", MINUTES.toMillis(1)).get().getBody()).isEqualTo("response 199");
+ }
+
+ @Test
+ public void testThatExpiredResponsesAreDeletedWhenCompacted() throws Exception {
+  new RestDiskCache(directory).put("old", new RestResponse("response old", null, null));
+  Files.append("old 1000\n", new File(directory, "index"), UTF_8);
+
+  RestDiskCache restDiskCache = new RestDiskCache(directory);
+  assertThat(restDiskCache.get("old", MINUTES.toMillis(1)).isPresent()).isFalse();
+  restDiskCache.put("new", new RestResponse("response new", null, null));
+
+  assertThat(new File(directory, "old.response").exists()).isFalse();
+  assertThat(new File(directory, "new.response").exists()).isTrue();
+  assertThat(Files.toString(new File(directory, "index"), UTF_8)).doesNotContain("old");
+ }
+
+ @Test
+ public void testThatCorruptResponseIsAMiss() throws Exception {
+  RestDiskCache restDiskCache = new RestDiskCache(directory);
+  restDiskCache.put("a", new RestResponse("response a", null, null));
+  restDiskCache.put("b", new RestResponse("response b", null, null));
+  Files.write("{\"body\": \"trunc".getBytes(UTF_8), new File(directory, "a.response"));
+  Files.write("response in old format".getBytes(UTF_8), new File(directory, "b.response"));
+
+  assertThat(new RestDiskCache(directory).get("a", MINUTES.toMillis(1)).isPresent()).isFalse();
+  assertThat(new RestDiskCache(directory).getStale("b").isPresent()).isFalse();
+  assertThat(new File(directory, "a.response").exists()).isFalse();
+  assertThat(new File(directory, "b.response").exists()).isFalse();
+ }
+
+ @Test
+ public void testThatKeyDependsOnCredentials() {
+  assertThat(toKey("http://url", null)).isEqualTo(toKey("http://url", null));
+  assertThat(toKey("http://url", null)).isNotEqualTo(toKey("http://url", "dXNlcjpwYXNz"));
+  assertThat(toKey("http://url", "dXNlcjpwYXNz")).doesNotContain("dXNlcjpwYXNz");
+ }
+
+ @Test
+ public void testThatRestClientUsesCachedResponse() {
+  mockedRestClient.addMockedResponse("/path?a=b", "the response");
+  new RestClient(0, MINUTES).withDiskCache(new RestDiskCache(directory), 1, MINUTES).get("http://server/path?a=b");
+  RestClient.mock(new RestClientMock());
+
+  assertThat(new RestClient(0, MINUTES) //
+    .withDiskCache(new RestDiskCache(directory), 1, MINUTES) //
+    .get("http://server/path?a=b") //
+    .get()).isEqualTo("the response");
+ }
+
+ @Test
+ public void testThatExpiredResponseIsValidatedWithETag() {
+  mockedRestClient //
+    .addMockedResponse("/path?a=b", "the response") //
+    .addMockedETag("/path?a=b", "\"v1\"");
+  new RestClient(0, MINUTES).withDiskCache(new RestDiskCache(directory), 1, MINUTES).get("http://server/path?a=b");
+  RestClient.mock(new RestClientMock().addMockedETag("/path?a=b", "\"v1\""));
+
+  RestDiskCache restDiskCache = new RestDiskCache(directory);
+  assertThat(new RestClient(0, MINUTES) //
+    .withDiskCache(restDiskCache, 0, MINUTES) //
+    .get("http://server/path?a=b") //
+    .get()).isEqualTo("the response");
+  assertThat(restDiskCache.getStale(toKey("http://server/path?a=b", null)).get().getETag().get()) //
+    .isEqualTo("\"v1\"");
+ }
+
+ @Test
+ public void testThatChangedResponseIsFetchedAgain() {
+  mockedRestClient //
+    .addMockedResponse("/path?a=b", "the response") //
+    .addMockedETag("/path?a=b", "\"v1\"");
+  new RestClient(0, MINUTES).withDiskCache(new RestDiskCache(directory), 1, MINUTES).get("http://server/path?a=b");
+  RestClient.mock(new RestClientMock() //
+    .addMockedResponse("/path?a=b", "the new response") //
+    .addMockedETag("/path?a=b", "\"v2\""));
+
+  assertThat(new RestClient(0, MINUTES) //
+    .withDiskCache(new RestDiskCache(directory), 0, MINUTES) //
+    .get("http://server/path?a=b") //
+    .get()).isEqualTo("the new response");
+ }
+}
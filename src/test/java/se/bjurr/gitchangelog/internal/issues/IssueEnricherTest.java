@@ -0,0 +1,146 @@
+package se.bjurr.gitchangelog.internal.issues;
+
+import static com.google.common.base.Optional.of;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Ordering.natural;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import se.bjurr.gitchangelog.internal.integrations.github.GitHubClient;
+import se.bjurr.gitchangelog.internal.integrations.github.GitHubIssue;
+import se.bjurr.gitchangelog.internal.integrations.jira.JiraClient;
+import se.bjurr.gitchangelog.internal.integrations.jira.JiraIssue;
+
+import com.google.common.base.Optional;
+
+public class IssueEnricherTest {
+
+ private ExecutorService executor;
+ private final AtomicInteger inFlight = new AtomicInteger();
+ private final AtomicInteger maxInFlight = new AtomicInteger();
+ private final List<Integer> jiraPageSizes = newArrayList();
+
+ private final GitHubClient gitHubClient = new GitHubClient("https://api.github.com/repos/a/b") {
+  @Override
+  public Optional<GitHubIssue> getIssue(String issue) {
+   request();
+   return of(new GitHubIssue("Title " + issue, "https://github.com/a/b/issues/" + issue, issue));
+  }
+ };
+
+ private final JiraClient jiraClient = new JiraClient("https://jiraserver/jira") {
+  @Override
+  public void withBasicCredentials(String username, String password) {
+  }
+
+  @Override
+  public Optional<JiraIssue> getIssue(String issue) {
+   return of(new JiraIssue("Title " + issue, "https://jiraserver/jira/browse/", issue));
+  }
+
+  @Override
+  public Map<String, JiraIssue> getIssues(Collection<String> issues) {
+   request();
+   synchronized (jiraPageSizes) {
+    jiraPageSizes.add(issues.size());
+   }
+   return super.getIssues(issues);
+  }
+ };
+
+ @Before
+ public void before() {
+  executor = newFixedThreadPool(8);
+ }
+
+ @After
+ public void after() {
+  executor.shutdown();
+ }
+
+ @Test
+ public void testThatRequestsInFlightAreLimitedPerServer() {
+  IssueEnricher issueEnricher = new IssueEnricher(executor, 2, gitHubClient, null);
+  for (int i = 0; i < 20; i++) {
+   issueEnricher.lookupGitHubIssue("#" + i);
+  }
+  issueEnricher.lookupJiraIssue("JIR-1");
+
+  Map<String, GitHubIssue> found = issueEnricher.getGitHubIssues();
+
+  assertThat(found).hasSize(20);
+  assertThat(found.get("#7").getTitle()).isEqualTo("Title #7");
+  assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+  assertThat(issueEnricher.getJiraIssues()).isEmpty();
+ }
+
+ @Test
+ public void testThatJiraIssuesAreLookedUpInPages() {
+  IssueEnricher issueEnricher = new IssueEnricher(executor, 1, null, jiraClient);
+  for (int i = 0; i < 120; i++) {
+   issueEnricher.lookupJiraIssue("JIR-" + i);
+  }
+
+  Map<String, JiraIssue> found = issueEnricher.getJiraIssues();
+
+  assertThat(found).hasSize(120);
+  assertThat(natural().sortedCopy(jiraPageSizes)).containsExactly(20, 50, 50);
+  assertThat(maxInFlight.get()).isEqualTo(1);
+ }
+
+ @Test(timeout = 10000)
+ public void testThatWaitingLookupsDoNotHoldThreadsOfOtherServers() throws Exception {
+  final CountDownLatch released = new CountDownLatch(1);
+  GitHubClient blockingGitHubClient = new GitHubClient("https://api.github.com/repos/a/b") {
+   @Override
+   public Optional<GitHubIssue> getIssue(String issue) {
+    try {
+     released.await();
+    } catch (InterruptedException e) {
+     Thread.currentThread().interrupt();
+    }
+    return of(new GitHubIssue("Title " + issue, "https://github.com/a/b/issues/" + issue, issue));
+   }
+  };
+  ExecutorService twoThreads = newFixedThreadPool(2);
+  try {
+   IssueEnricher issueEnricher = new IssueEnricher(twoThreads, 1, blockingGitHubClient, jiraClient);
+   for (int i = 0; i < 5; i++) {
+    issueEnricher.lookupGitHubIssue("#" + i);
+   }
+   issueEnricher.lookupJiraIssue("JIR-1");
+
+   assertThat(issueEnricher.getJiraIssues()).containsOnlyKeys("JIR-1");
+   released.countDown();
+   assertThat(issueEnricher.getGitHubIssues()).hasSize(5);
+  } finally {
+   released.countDown();
+   twoThreads.shutdown();
+  }
+ }
+
+ private void request() {
+  int current = inFlight.incrementAndGet();
+  synchronized (maxInFlight) {
+   maxInFlight.set(Math.max(maxInFlight.get(), current));
+  }
+  try {
+   Thread.sleep(10);
+  } catch (InterruptedException e) {
+   Thread.currentThread().interrupt();
+  } finally {
+   inFlight.decrementAndGet();
+  }
+ }
+}
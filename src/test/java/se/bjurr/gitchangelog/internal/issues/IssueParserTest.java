@@ -0,0 +1,70 @@
+package se.bjurr.gitchangelog.internal.issues;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static se.bjurr.gitchangelog.internal.git.model.GitCommitFixture.gitCommit;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.bjurr.gitchangelog.internal.git.model.GitCommit;
+import se.bjurr.gitchangelog.internal.model.ParsedIssue;
+import se.bjurr.gitchangelog.internal.settings.Settings;
+import se.bjurr.gitchangelog.internal.settings.SettingsIssue;
+
+public class IssueParserTest {
+
+ private Settings settings;
+ private List<GitCommit> commits;
+
+ @Before
+ public void before() {
+  settings = new Settings();
+  settings.setNoIssueName("No issue");
+  settings.addCustomIssue(new SettingsIssue("Incident", "INC[0-9]+", "http://inc/${PATTERN_GROUP}"));
+  commits = newArrayList(//
+    commit(1, "INC1 first"), //
+    commit(2, "INC2 and INC1"), //
+    commit(3, "no issue"), //
+    commit(4, "INC2 twice INC2"));
+ }
+
+ @Test
+ public void testThatIssuesOfPartOfTheRangeAreSameAsWhenParsed() {
+  IssueIndex issueIndex = new IssueParser(settings, commits).parseForIssueIndex();
+
+  assertIssuesEquals(issueIndex.getIssues(commits), new IssueParser(settings, commits).parseForIssues());
+  List<GitCommit> part = commits.subList(1, 4);
+  assertIssuesEquals(issueIndex.getIssues(part), new IssueParser(settings, part).parseForIssues());
+  part = commits.subList(2, 3);
+  assertIssuesEquals(issueIndex.getIssues(part), new IssueParser(settings, part).parseForIssues());
+ }
+
+ @Test
+ public void testThatCommitsAreMappedToIssues() {
+  List<ParsedIssue> issues = new IssueParser(settings, commits).parseForIssueIndex().getIssues(commits);
+
+  assertThat(issues).hasSize(3);
+  assertThat(issues.get(0).getIssue()).isEqualTo("INC1");
+  assertThat(issues.get(0).getLink()).isEqualTo("http://inc/INC1");
+  assertThat(issues.get(0).getGitCommits()).containsExactly(commits.get(0), commits.get(1));
+  assertThat(issues.get(1).getGitCommits()).containsExactly(commits.get(1), commits.get(3), commits.get(3));
+  assertThat(issues.get(2).getName()).isEqualTo("No issue");
+  assertThat(issues.get(2).getGitCommits()).containsExactly(commits.get(2));
+ }
+
+ private void assertIssuesEquals(List<ParsedIssue> actual, List<ParsedIssue> expected) {
+  assertThat(actual).hasSize(expected.size());
+  for (int i = 0; i < expected.size(); i++) {
+   assertThat(actual.get(i).toString()).isEqualTo(expected.get(i).toString());
+   assertThat(actual.get(i).getLink()).isEqualTo(expected.get(i).getLink());
+   assertThat(actual.get(i).getGitCommits()).isEqualTo(expected.get(i).getGitCommits());
+  }
+ }
+
+ private GitCommit commit(int i, String message) {
+  return gitCommit(i, "author", message);
+ }
+}
@@ -0,0 +1,53 @@
+package se.bjurr.gitchangelog.internal.issues;
+
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.assertj.core.api.Assertions.assertThat;
+import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.REF_MASTER;
+import static se.bjurr.gitchangelog.api.GitChangelogApiConstants.ZERO_COMMIT;
+
+import java.io.File;
+import java.util.List;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+
+import se.bjurr.gitchangelog.internal.git.GitRepo;
+import se.bjurr.gitchangelog.internal.model.ParsedIssue;
+import se.bjurr.gitchangelog.internal.settings.CompiledPatterns;
+import se.bjurr.gitchangelog.internal.settings.Settings;
+
+import com.google.common.io.Resources;
+
+public class IssuePipelineTest {
+ private GitRepo gitRepo;
+ private Settings settings;
+
+ @Before
+ public void before() {
+  gitRepo = new GitRepo(new File(Resources.getResource("github-issues.json").getFile()));
+  settings = new Settings();
+ }
+
+ @Test
+ public void testThatPipelinedIsSameAsSequential() {
+  ObjectId from = gitRepo.getCommit(ZERO_COMMIT);
+  ObjectId to = gitRepo.getRef(REF_MASTER);
+  CompiledPatterns compiledPatterns = new CompiledPatterns(settings);
+  IssuePipeline sequential = new IssuePipeline(settings, compiledPatterns, sameThreadExecutor());
+  sequential.runSequentially(gitRepo, from, to);
+  IssuePipeline pipelined = new IssuePipeline(settings, compiledPatterns, sameThreadExecutor());
+  pipelined.run(gitRepo, from, to);
+
+  assertThat(pipelined.getGitRepoData().getGitCommits()) //
+    .isEqualTo(sequential.getGitRepoData().getGitCommits());
+  assertThat(pipelined.getGitRepoData().getGitTags().toString()) //
+    .isEqualTo(sequential.getGitRepoData().getGitTags().toString());
+  List<ParsedIssue> expected = sequential.getIssueIndex().getIssues();
+  List<ParsedIssue> actual = pipelined.getIssueIndex().getIssues();
+  assertThat(actual.toString()).isEqualTo(expected.toString());
+  for (int i = 0; i < expected.size(); i++) {
+   assertThat(actual.get(i).getGitCommits()).isEqualTo(expected.get(i).getGitCommits());
+  }
+ }
+}
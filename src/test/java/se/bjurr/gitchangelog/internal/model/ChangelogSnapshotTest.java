@@ -0,0 +1,76 @@
+package se.bjurr.gitchangelog.internal.model;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static se.bjurr.gitchangelog.internal.model.ChangelogSnapshot.readSnapshot;
+import static se.bjurr.gitchangelog.internal.model.ChangelogSnapshot.toKey;
+import static se.bjurr.gitchangelog.internal.model.ChangelogSnapshot.writeSnapshot;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.bjurr.gitchangelog.api.model.Author;
+import se.bjurr.gitchangelog.api.model.Changelog;
+import se.bjurr.gitchangelog.api.model.Commit;
+import se.bjurr.gitchangelog.api.model.Issue;
+import se.bjurr.gitchangelog.api.model.Tag;
+import se.bjurr.gitchangelog.internal.settings.Settings;
+import se.bjurr.gitchangelog.internal.settings.SettingsIssue;
+
+public class ChangelogSnapshotTest {
+ private static final ObjectId FROM = ObjectId.fromString("a1aa5ff5b625e63aa5ad7b59367ec7f75658afb8");
+ private static final ObjectId TO = ObjectId.fromString("01484ce71bbc76e1af75ebb07a52844145ce99dc");
+
+ @Rule
+ public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+ @Test
+ public void testThatSettingsThatChangeTheModelInvalidateTheSnapshot() throws Exception {
+  File snapshots = temporaryFolder.newFolder("snapshots");
+  Settings settings = new Settings();
+  writeSnapshot(changelog(), new File(snapshots, toKey(FROM, TO, settings)));
+  assertThat(readSnapshot(new File(snapshots, toKey(FROM, TO, settings))).isPresent()).isTrue();
+
+  settings.setDateFormat("yyyy");
+  assertThat(readSnapshot(new File(snapshots, toKey(FROM, TO, settings))).isPresent()).isFalse();
+
+  Settings other = new Settings();
+  other.setNoIssueName("Other");
+  assertThat(toKey(FROM, TO, other)).isNotEqualTo(toKey(FROM, TO, new Settings()));
+  other = new Settings();
+  other.addCustomIssue(new SettingsIssue("Issue Name", "INC[0-9]*", "http://inc/${PATTERN_GROUP}"));
+  assertThat(toKey(FROM, TO, other)).isNotEqualTo(toKey(FROM, TO, new Settings()));
+  assertThat(toKey(FROM, other)).isNotEqualTo(toKey(FROM, new Settings()));
+ }
+
+ @Test
+ public void testThatSettingsThatDoNotChangeTheModelKeepTheKey() {
+  Settings settings = new Settings();
+  settings.setTemplatePath("other.mustache");
+  settings.setFromRef("refs/heads/other");
+  settings.setPipelined(true);
+  settings.setSnapshotDirectory("snapshots");
+  List<Object> cyclic = newArrayList();
+  cyclic.add(cyclic);
+  Map<String, Object> extendedVariables = newHashMap();
+  extendedVariables.put("cyclic", cyclic);
+  settings.setExtendedVariables(extendedVariables);
+  assertThat(toKey(FROM, TO, settings)).isEqualTo(toKey(FROM, TO, new Settings()));
+ }
+
+ private Changelog changelog() {
+  Commit commit = new Commit("author", "author@example.com", "2016-01-01", 0L, "message", "a1aa5ff");
+  List<Commit> commits = newArrayList(commit);
+  List<Author> authors = newArrayList(new Author("author", "author@example.com", commits));
+  List<Issue> issues = newArrayList(new Issue(commits, authors, "No issue", null, null, null));
+  List<Tag> tags = newArrayList(new Tag("1.0", commits, authors, issues));
+  return new Changelog(commits, tags, authors, issues);
+ }
+}
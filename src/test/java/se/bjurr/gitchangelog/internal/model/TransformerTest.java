@@ -1,13 +1,23 @@
 package se.bjurr.gitchangelog.internal.model;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.assertj.core.api.Assertions.assertThat;
+import static se.bjurr.gitchangelog.internal.git.model.GitCommitFixture.gitCommit;
 
+import java.lang.ref.WeakReference;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import se.bjurr.gitchangelog.api.model.Commit;
+import se.bjurr.gitchangelog.api.model.Tag;
+import se.bjurr.gitchangelog.internal.git.model.GitCommit;
+import se.bjurr.gitchangelog.internal.git.model.GitTag;
+import se.bjurr.gitchangelog.internal.issues.IssueIndex;
+import se.bjurr.gitchangelog.internal.issues.IssueParser;
 import se.bjurr.gitchangelog.internal.settings.Settings;
 import se.bjurr.gitchangelog.internal.settings.SettingsIssue;
 
@@ -41,4 +51,117 @@ public class TransformerTest {
   assertThat(transformer.toMessage(true, noIssues, message))//
     .isEqualTo(message);
  }
+
+ @Test
+ public void testThatTagsCreatedConcurrentlyAreSameAsCreatedOneByOne() {
+  List<GitTag> gitTags = incTags();
+  Settings settings = incSettings();
+  IssueIndex issueIndex = new IssueParser(settings, commitsOf(gitTags)).parseForIssueIndex();
+
+  List<Tag> expected = new Transformer(settings).toTags(gitTags, issueIndex);
+  ExecutorService executor = newFixedThreadPool(4);
+  List<Tag> actual;
+  try {
+   actual = new Transformer(settings).toTags(gitTags, issueIndex, executor);
+  } finally {
+   executor.shutdown();
+  }
+
+  assertThat(actual).hasSize(expected.size());
+  for (int i = 0; i < expected.size(); i++) {
+   assertThat(actual.get(i).getName()).isEqualTo(expected.get(i).getName());
+   assertThat(actual.get(i).getCommits().toString()).isEqualTo(expected.get(i).getCommits().toString());
+   assertThat(actual.get(i).getAuthors().toString()).isEqualTo(expected.get(i).getAuthors().toString());
+   assertThat(actual.get(i).getIssues().toString()).isEqualTo(expected.get(i).getIssues().toString());
+  }
+ }
+
+ @Test
+ public void testThatTagsCreatedConcurrentlyShareCommitsWithTheSession() {
+  List<GitTag> gitTags = incTags();
+  Settings settings = incSettings();
+  IssueIndex issueIndex = new IssueParser(settings, commitsOf(gitTags)).parseForIssueIndex();
+  Transformer transformer = new Transformer(settings);
+
+  ExecutorService executor = newFixedThreadPool(4);
+  List<Tag> concurrent;
+  try {
+   concurrent = transformer.toTags(gitTags, issueIndex, executor);
+  } finally {
+   executor.shutdown();
+  }
+  List<Commit> commits = transformer.toCommits(commitsOf(gitTags));
+  List<Tag> sequential = transformer.toTags(gitTags, issueIndex);
+
+  for (int t = 0; t < gitTags.size(); t++) {
+   for (int c = 0; c < 5; c++) {
+    Commit commit = commits.get(t * 5 + c);
+    assertThat(concurrent.get(t).getCommits().get(c)).isSameAs(commit);
+    assertThat(concurrent.get(t).getAuthors().get(c).getCommits().get(0)).isSameAs(commit);
+    assertThat(sequential.get(t).getCommits().get(c)).isSameAs(commit);
+   }
+  }
+ }
+
+ @Test
+ public void testThatLazyTagsAreNotKept() throws Exception {
+  List<GitCommit> gitCommits = newArrayList();
+  List<GitTag> gitTags = newArrayList();
+  for (int t = 0; t < 3; t++) {
+   GitCommit gitCommit = gitCommit(t, "author", "INC" + t + " commit");
+   gitCommits.add(gitCommit);
+   gitTags.add(new GitTag("refs/tags/" + t, newArrayList(gitCommit)));
+  }
+  IssueIndex issueIndex = new IssueParser(new Settings(), gitCommits).parseForIssueIndex();
+  Transformer transformer = new Transformer(new Settings());
+  List<Tag> tags = transformer.toTagsLazily(gitTags, issueIndex);
+  List<Commit> commits = transformer.toCommitsLazily(gitCommits);
+
+  Tag tag = tags.get(1);
+  WeakReference<Tag> rendered = new WeakReference<Tag>(tag);
+  WeakReference<Commit> renderedCommit = new WeakReference<Commit>(tag.getCommits().get(0));
+  WeakReference<Commit> commit = new WeakReference<Commit>(commits.get(1));
+  assertThat(tag.getCommits().get(0).getHash()).isEqualTo(commits.get(1).getHash());
+  tag = null;
+
+  assertThat(tags.get(2).getName()).isEqualTo("2");
+  for (int i = 0; i < 20 && (rendered.get() != null || renderedCommit.get() != null || commit.get() != null); i++) {
+   System.gc();
+   Thread.sleep(10);
+  }
+  assertThat(rendered.get()).isNull();
+  assertThat(renderedCommit.get()).isNull();
+  assertThat(commit.get()).isNull();
+ }
+
+ /**
+  * Tags of five commits, each by another author, that refer to an issue per
+  * tag.
+  */
+ private List<GitTag> incTags() {
+  List<GitTag> gitTags = newArrayList();
+  for (int t = 0; t < 50; t++) {
+   List<GitCommit> tagCommits = newArrayList();
+   for (int c = 0; c < 5; c++) {
+    int i = t * 5 + c;
+    tagCommits.add(gitCommit(i, "author" + c, "INC" + t + " commit " + i));
+   }
+   gitTags.add(new GitTag("refs/tags/" + t, tagCommits));
+  }
+  return gitTags;
+ }
+
+ private List<GitCommit> commitsOf(List<GitTag> gitTags) {
+  List<GitCommit> gitCommits = newArrayList();
+  for (GitTag gitTag : gitTags) {
+   gitCommits.addAll(gitTag.getGitCommits());
+  }
+  return gitCommits;
+ }
+
+ private Settings incSettings() {
+  Settings settings = new Settings();
+  settings.addCustomIssue(new SettingsIssue("Issue Name", "INC[0-9]*", "http://inc/${PATTERN_GROUP}"));
+  return settings;
+ }
 }
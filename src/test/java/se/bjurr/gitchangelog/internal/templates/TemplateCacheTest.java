@@ -0,0 +1,66 @@
+package se.bjurr.gitchangelog.internal.templates;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.mustachejava.Mustache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+
+public class TemplateCacheTest {
+ @Rule
+ public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+ private final TemplateCache templateCache = new TemplateCache(2);
+
+ @Test
+ public void testThatContentIsCompiledOnce() {
+  Mustache first = templateCache.getTemplate(null, "Hello {{name}}");
+  Mustache second = templateCache.getTemplate(null, "Hello {{name}}");
+
+  assertThat(second).isSameAs(first);
+  assertThat(execute(second)).isEqualTo("Hello world");
+  assertThat(templateCache.getTemplate(null, "Bye {{name}}")).isNotSameAs(first);
+ }
+
+ @Test
+ public void testThatChangedFileIsCompiledAgain() throws IOException {
+  File file = temporaryFolder.newFile("template.mustache");
+  Files.write("Hello {{name}}", file, UTF_8);
+  Mustache first = templateCache.getTemplate(file.getAbsolutePath(), null);
+  assertThat(templateCache.getTemplate(file.getAbsolutePath(), null)).isSameAs(first);
+
+  Files.write("Hello again {{name}}", file, UTF_8);
+  file.setLastModified(file.lastModified() + 2000);
+
+  assertThat(execute(templateCache.getTemplate(file.getAbsolutePath(), null))).isEqualTo("Hello again world");
+ }
+
+ @Test
+ public void testThatSizeIsBounded() {
+  templateCache.getTemplate(null, "1");
+  templateCache.getTemplate(null, "2");
+  templateCache.getTemplate(null, "3");
+
+  assertThat(templateCache.getStats().evictionCount()).isEqualTo(1);
+ }
+
+ @Test(expected = RuntimeException.class)
+ public void testThatMissingTemplateIsReported() {
+  templateCache.getTemplate("/does/not/exist.mustache", null);
+ }
+
+ private String execute(Mustache mustache) {
+  StringWriter writer = new StringWriter();
+  mustache.execute(writer, ImmutableMap.of("name", "world"));
+  return writer.toString();
+ }
+}